@@ -1,14 +1,15 @@
 package com.appstronautstudios.generalutils;
 
 import android.app.Activity;
+import android.content.BroadcastReceiver;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
@@ -19,7 +20,6 @@ import android.provider.Settings;
 import android.telephony.TelephonyManager;
 import android.text.Editable;
 import android.text.TextWatcher;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.View;
 import android.webkit.MimeTypeMap;
@@ -29,23 +29,20 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.exifinterface.media.ExifInterface;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -54,15 +51,23 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Random;
 import java.util.Set;
-import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 public class AppstronautUtils {
 
-    private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(java.time.ZoneId.systemDefault());
-    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(java.time.ZoneId.systemDefault());
-    private static final DateTimeFormatter WEEK_FMT = DateTimeFormatter.ofPattern("YYYYww").withZone(java.time.ZoneId.systemDefault());
-    private static final DateTimeFormatter MONTH_FMT = DateTimeFormatter.ofPattern("yyyyMM").withZone(java.time.ZoneId.systemDefault());
+    private static BroadcastReceiver sTimeZoneReceiver;
+
+    // zone is applied per call from ZoneSnapshot so a time zone change isn't frozen in here
+    private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter WEEK_FMT = DateTimeFormatter.ofPattern("YYYYww");
+    private static final DateTimeFormatter MONTH_FMT = DateTimeFormatter.ofPattern("yyyyMM");
+    // "YYYY" parses greedily so the week parser spells out fixed widths for the same fields
+    private static final DateTimeFormatter WEEK_PARSE_FMT = new DateTimeFormatterBuilder()
+            .appendValue(TimeKeys.WEEK_FIELDS.weekBasedYear(), 4)
+            .appendValue(TimeKeys.WEEK_FIELDS.weekOfWeekBasedYear(), 2)
+            .appendValue(ChronoField.DAY_OF_WEEK, 1)
+            .toFormatter();
 
     public static String getDeviceId(Context context) {
         return Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
@@ -248,33 +253,83 @@ public class AppstronautUtils {
             return xValsRet;
         }
 
-        // Default null defensive check
-        Timescale scale = (timeScale != null) ? timeScale : Timescale.DAY;
+        long[] xVals = setupNewXValsMillis(startTimestamp, endTimestamp, timeScale);
+        xValsRet.ensureCapacity(xVals.length);
+        for (long xVal : xVals) {
+            xValsRet.add(new Date(xVal));
+        }
 
-        Calendar beginCalendar = Calendar.getInstance();
-        Calendar finishCalendar = Calendar.getInstance();
+        return xValsRet;
+    }
 
-        beginCalendar.setTimeInMillis(startTimestamp);
-        if (scale != Timescale.HOUR) {
-            beginCalendar.set(Calendar.HOUR_OF_DAY, 0);
-        }
-        beginCalendar.set(Calendar.MINUTE, 0);
-        beginCalendar.set(Calendar.SECOND, 0);
-        beginCalendar.set(Calendar.MILLISECOND, 0);
+    /**
+     * Primitive version of {@link #setupNewXVals(long, long, Timescale, boolean)}. Returns the
+     * bucket start timestamps as epoch millis instead of Date objects.
+     *
+     * @param startTimestamp timestamp of where to start
+     * @param endTimestamp   timestamp of where to end
+     * @param timeScale      timescale to iterate with
+     * @return bucket start timestamps from the start of the startTimestamp day to end of the endTimestamp day
+     * @see #setupNewXValsMillis(long, long, Timescale, long[])
+     */
+    public static long[] setupNewXValsMillis(long startTimestamp, long endTimestamp, Timescale timeScale) {
+        long[] xVals = new long[countNewXVals(startTimestamp, endTimestamp, timeScale)];
+        setupNewXValsMillis(startTimestamp, endTimestamp, timeScale, xVals);
+        return xVals;
+    }
 
-        finishCalendar.setTimeInMillis(endTimestamp);
-        finishCalendar.set(Calendar.HOUR_OF_DAY, 23);
-        finishCalendar.set(Calendar.MINUTE, 59);
-        finishCalendar.set(Calendar.SECOND, 59);
-        finishCalendar.set(Calendar.MILLISECOND, 999);
+    /**
+     * Fills the provided buffer with bucket start timestamps as defined by
+     * {@link #setupNewXVals(long, long, Timescale, boolean)}. Buckets that do not fit in the buffer
+     * are skipped so callers can reuse one buffer across redraws. Use
+     * {@link #countNewXVals(long, long, Timescale)} to size it. Note this uses the local time zone
+     * for calculations NOT UTC.
+     *
+     * @param startTimestamp timestamp of where to start
+     * @param endTimestamp   timestamp of where to end
+     * @param timeScale      timescale to iterate with
+     * @param buffer         buffer to write the bucket start timestamps into
+     * @return number of bucket start timestamps written to the buffer
+     */
+    public static int setupNewXValsMillis(long startTimestamp, long endTimestamp, Timescale timeScale, long[] buffer) {
+        return new TimeAxis(startTimestamp, endTimestamp, timeScale).fill(0, buffer);
+    }
 
-        // create xVals at intervals until we're at end date
-        while (beginCalendar.getTimeInMillis() <= finishCalendar.getTimeInMillis()) {
-            xValsRet.add(beginCalendar.getTime());
-            beginCalendar.add(scale.getCalendarField(), 1);
-        }
+    /**
+     * Number of buckets {@link #setupNewXValsMillis(long, long, Timescale, long[])} would generate
+     * for the provided range.
+     *
+     * @param startTimestamp timestamp of where to start
+     * @param endTimestamp   timestamp of where to end
+     * @param timeScale      timescale to iterate with
+     * @return bucket count, 0 if the end is before the start
+     */
+    public static int countNewXVals(long startTimestamp, long endTimestamp, Timescale timeScale) {
+        Timescale scale = (timeScale != null) ? timeScale : Timescale.DAY;
+        ZoneId zone = ZoneSnapshot.systemDefault().getZone();
+        LocalDateTime begin = LocalDateTime.ofInstant(Instant.ofEpochMilli(startTimestamp), zone);
+        LocalDate endDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(endTimestamp), zone).toLocalDate();
 
-        return xValsRet;
+        switch (scale) {
+            case HOUR:
+                long beginMillis = begin.truncatedTo(ChronoUnit.HOURS).atZone(zone).toInstant().toEpochMilli();
+                long finish = endOfDateTimestamp(endTimestamp);
+                if (beginMillis > finish) return 0;
+                return Math.toIntExact((finish - beginMillis) / TimeUnit.HOURS.toMillis(1) + 1);
+            case WEEK:
+            case DAY:
+                long days = ChronoUnit.DAYS.between(begin.toLocalDate(), endDate);
+                if (days < 0) return 0;
+                return Math.toIntExact(scale == Timescale.WEEK ? days / 7 + 1 : days + 1);
+            case MONTH:
+            default:
+                // month lengths vary so just walk them, there are only ever a handful
+                int count = 0;
+                for (LocalDate date = begin.toLocalDate(); !date.isAfter(endDate); date = date.plusMonths(1)) {
+                    count++;
+                }
+                return count;
+        }
     }
 
     public static boolean isInTimeWindow(long target, long windowStart, long windowEnd) {
@@ -284,59 +339,70 @@ public class AppstronautUtils {
     public static boolean isSameDay(Date date1, Date date2) {
         if (date1 == null || date2 == null) return false;
 
-        Calendar cal1 = Calendar.getInstance();
-        cal1.setTime(date1);
-
-        Calendar cal2 = Calendar.getInstance();
-        cal2.setTime(date2);
+        return sameLocalDay(date1.getTime(), date2.getTime());
+    }
 
-        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
-                cal1.get(Calendar.MONTH) == cal2.get(Calendar.MONTH) &&
-                cal1.get(Calendar.DAY_OF_MONTH) == cal2.get(Calendar.DAY_OF_MONTH);
+    /**
+     * Primitive version of {@link #isSameDay(Date, Date)}. Creates no objects.
+     *
+     * @param timestamp1 first timestamp
+     * @param timestamp2 second timestamp
+     * @return true if both timestamps fall on the same local day
+     */
+    public static boolean sameLocalDay(long timestamp1, long timestamp2) {
+        ZoneSnapshot zone = ZoneSnapshot.systemDefault();
+        return zone.toEpochDay(timestamp1) == zone.toEpochDay(timestamp2);
     }
 
-    public static Date utcDateToLocalMidnight(long utcTimestamp) {
-        // Step 1: Interpret the UTC timestamp as a UTC calendar
-        Calendar utcCal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        utcCal.setTimeInMillis(utcTimestamp);
+    /**
+     * Local day of a timestamp as days since 1970-01-01, e.g. for grouping or comparing days
+     * without creating a Date or LocalDate. Creates no objects.
+     *
+     * @param timestamp timestamp to convert
+     * @return local epoch day
+     */
+    public static long localEpochDay(long timestamp) {
+        return ZoneSnapshot.systemDefault().toEpochDay(timestamp);
+    }
 
-        int year = utcCal.get(Calendar.YEAR);
-        int month = utcCal.get(Calendar.MONTH); // zero-based
-        int day = utcCal.get(Calendar.DAY_OF_MONTH);
+    /**
+     * Primitive version of {@link #startOfDate(Date)}. Creates no objects.
+     *
+     * @param timestamp timestamp within the day
+     * @return timestamp of the start of the local day
+     */
+    public static long startOfDayMillis(long timestamp) {
+        ZoneSnapshot zone = ZoneSnapshot.systemDefault(); // local time zone
+        return zone.startOfDayMillis(zone.toEpochDay(timestamp));
+    }
 
-        // Step 2: Create a local calendar at 00:00:00 on that same date
-        Calendar localCal = Calendar.getInstance(); // local time zone
-        localCal.set(Calendar.YEAR, year);
-        localCal.set(Calendar.MONTH, month);
-        localCal.set(Calendar.DAY_OF_MONTH, day);
-        localCal.set(Calendar.HOUR_OF_DAY, 0);
-        localCal.set(Calendar.MINUTE, 0);
-        localCal.set(Calendar.SECOND, 0);
-        localCal.set(Calendar.MILLISECOND, 0);
+    /**
+     * Primitive version of {@link #endOfDate(Date)}. Creates no objects.
+     *
+     * @param timestamp timestamp within the day
+     * @return timestamp of the last millisecond of the local day
+     */
+    public static long endOfDayMillis(long timestamp) {
+        ZoneSnapshot zone = ZoneSnapshot.systemDefault(); // local time zone
 
-        return localCal.getTime();
+        // Last millisecond before the next local day, includes any repeated hour at midnight
+        return zone.startOfDayMillis(zone.toEpochDay(timestamp) + 1) - 1;
     }
 
-    public static Date shiftUTCToLocalDatePreservingAllCalendarComponents(long utcTimestamp) {
-        // Step 1: Interpret the UTC timestamp as a UTC calendar
-        Calendar utcCal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        utcCal.setTimeInMillis(utcTimestamp);
+    public static Date utcDateToLocalMidnight(long utcTimestamp) {
+        // Step 1: Interpret the UTC timestamp as a UTC date
+        long utcEpochDay = Math.floorDiv(utcTimestamp, TimeUnit.DAYS.toMillis(1));
 
-        int year = utcCal.get(Calendar.YEAR);
-        int month = utcCal.get(Calendar.MONTH); // zero-based
-        int day = utcCal.get(Calendar.DAY_OF_MONTH);
+        // Step 2: Local 00:00:00 on that same date
+        return new Date(ZoneSnapshot.systemDefault().startOfDayMillis(utcEpochDay));
+    }
 
-        // Step 2: Create a local calendar at 00:00:00 on that same date
-        Calendar localCal = Calendar.getInstance(); // local time zone
-        localCal.set(Calendar.YEAR, year);
-        localCal.set(Calendar.MONTH, month);
-        localCal.set(Calendar.DAY_OF_MONTH, day);
-        localCal.set(Calendar.HOUR_OF_DAY, 0);
-        localCal.set(Calendar.MINUTE, 0);
-        localCal.set(Calendar.SECOND, 0);
-        localCal.set(Calendar.MILLISECOND, 0);
+    public static Date shiftUTCToLocalDatePreservingAllCalendarComponents(long utcTimestamp) {
+        // Step 1: Interpret the UTC timestamp as a UTC date
+        long utcEpochDay = Math.floorDiv(utcTimestamp, TimeUnit.DAYS.toMillis(1));
 
-        return localCal.getTime();
+        // Step 2: Local 00:00:00 on that same date
+        return new Date(ZoneSnapshot.systemDefault().startOfDayMillis(utcEpochDay));
     }
 
     /**
@@ -344,59 +410,60 @@ public class AppstronautUtils {
      * Useful for MaterialDatePicker which expects UTC 00:00:00.
      */
     public static long localDateToUTC(Date localDate) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(localDate);
+        ZoneSnapshot zone = ZoneSnapshot.systemDefault();
 
-        // Set time to start of day in local timezone
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
+        // Start of day in local timezone
+        long startOfDay = zone.startOfDayMillis(zone.toEpochDay(localDate.getTime()));
 
         // Convert to UTC millis
-        return cal.getTimeInMillis() - cal.getTimeZone().getOffset(cal.getTimeInMillis());
+        return startOfDay - zone.offsetMillis(startOfDay);
     }
 
     public static Date startOfDate(Date date) {
-        Calendar calendar = Calendar.getInstance(); // local time zone
-        calendar.setTime(date);
-
-        // Set time fields to zero
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-
-        return calendar.getTime();
+        return new Date(startOfDayMillis(date.getTime()));
     }
 
     public static Date endOfDate(Date date) {
-        Calendar calendar = Calendar.getInstance(); // local time zone
-        calendar.setTime(date);
+        return new Date(endOfDayMillis(date.getTime()));
+    }
 
-        // Set to the end of the day
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
+    public static long endOfDateTimestamp(long dateMs) {
+        return endOfDayMillis(dateMs);
+    }
 
-        return calendar.getTime();
+    /**
+     * Drops cached time zone data so the date helpers pick up the current system time zone.
+     * Until then they keep using the time zone they first saw. Called automatically once
+     * {@link #watchTimeZoneChanges(Context)} has been set up.
+     */
+    public static void onTimeZoneChanged() {
+        ZoneSnapshot.invalidate();
     }
 
-    public static long endOfDateTimestamp(long dateMs) {
-        return java.time.Instant.ofEpochMilli(dateMs)
-                .atZone(java.time.ZoneId.systemDefault())
-                .with(java.time.LocalTime.MAX)
-                .toInstant()
-                .toEpochMilli();
+    /**
+     * Registers a receiver on the application context that calls {@link #onTimeZoneChanged()}
+     * whenever the system time zone changes. Safe to call more than once, e.g. from
+     * Application.onCreate.
+     *
+     * @param context any context, only the application context is retained
+     */
+    public static synchronized void watchTimeZoneChanges(Context context) {
+        if (sTimeZoneReceiver != null) {
+            return;
+        }
+        sTimeZoneReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                onTimeZoneChanged();
+            }
+        };
+        context.getApplicationContext().registerReceiver(sTimeZoneReceiver, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
     }
 
     public static String timestampToCsvDate(long timestamp) {
-        Date date = new Date(timestamp);
         String outDate = null;
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
-            outDate = fmtOut.format(date);
+            outDate = DateFormatterCache.format(timestamp, DateFormatterCache.CSV_DATE_PATTERN, Locale.US);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -409,11 +476,9 @@ public class AppstronautUtils {
     }
 
     public static String timestampToSimpleDate(long timestamp) {
-        Date date = new Date(timestamp);
         String outDate = null;
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("yyyy/MM/dd", Locale.US);
-            outDate = fmtOut.format(date);
+            outDate = DateFormatterCache.format(timestamp, "yyyy/MM/dd", Locale.US);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -423,8 +488,7 @@ public class AppstronautUtils {
 
     public static String timestampToReadableDateString(long timeStamp) {
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            return fmtOut.format(new Date(timeStamp));
+            return DateFormatterCache.format(timeStamp, "MMM dd, yyyy", Locale.getDefault());
         } catch (Exception e) {
             return "";
         }
@@ -432,8 +496,7 @@ public class AppstronautUtils {
 
     public static String timestampToReadableTime12hr(long timeStamp) {
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("h:mm a", Locale.getDefault());
-            return fmtOut.format(new Date(timeStamp));
+            return DateFormatterCache.format(timeStamp, "h:mm a", Locale.getDefault());
         } catch (Exception e) {
             return "";
         }
@@ -441,8 +504,7 @@ public class AppstronautUtils {
 
     public static String timestampToReadableTime24hr(long timeStamp) {
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            return fmtOut.format(new Date(timeStamp));
+            return DateFormatterCache.format(timeStamp, "HH:mm", Locale.getDefault());
         } catch (Exception e) {
             return "";
         }
@@ -461,64 +523,137 @@ public class AppstronautUtils {
     }
 
     public static String timestampToKeyString(long timeStamp, Timescale timescale) {
-        Instant instant = Instant.ofEpochMilli(timeStamp);
         Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
 
+        long key = timestampToKey(timeStamp, scale);
+        long year = TimeKeys.year(key, scale);
+        if (year >= 1000 && year <= 9999) {
+            return Long.toString(key);
+        }
+
+        // padded or signed years, leave those to the formatters
+        ZonedDateTime dateTime = Instant.ofEpochMilli(timeStamp).atZone(ZoneSnapshot.systemDefault().getZone());
         switch (scale) {
             case HOUR:
-                return HOUR_FMT.format(instant);
+                return HOUR_FMT.format(dateTime);
             case WEEK:
-                return WEEK_FMT.format(instant);
+                return WEEK_FMT.format(dateTime);
             case MONTH:
-                return MONTH_FMT.format(instant);
+                return MONTH_FMT.format(dateTime);
             case DAY:
             default:
-                return DAY_FMT.format(instant);
+                return DAY_FMT.format(dateTime);
         }
     }
 
+    /**
+     * Numeric version of {@link #timestampToKeyString(long, Timescale)} e.g. 2025110307 for HOUR,
+     * 20251103 for DAY, 202545 for WEEK and 202511 for MONTH. Creates no objects so it is safe to
+     * call for every row when grouping large data sets.
+     *
+     * @param timeStamp timestamp to key
+     * @param timescale timescale of the key
+     * @return key as a number, matches the string key for years 1000 to 9999
+     */
+    public static long timestampToKey(long timeStamp, Timescale timescale) {
+        Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
+        return TimeKeys.encode(timeStamp, scale, ZoneSnapshot.systemDefault());
+    }
+
+    /**
+     * Appends the same text as {@link #timestampToKeyString(long, Timescale)} to the provided
+     * builder without creating an intermediate String.
+     *
+     * @param sb        builder to append to
+     * @param timeStamp timestamp to key
+     * @param timescale timescale of the key
+     * @return the provided builder
+     */
+    public static StringBuilder appendKeyString(StringBuilder sb, long timeStamp, Timescale timescale) {
+        Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
+        return TimeKeys.appendDigits(sb, timestampToKey(timeStamp, scale), TimeKeys.width(scale));
+    }
+
+    /**
+     * Writes the same text as {@link #timestampToKeyString(long, Timescale)} into the provided
+     * char array. Keys are fixed width: 10 chars for HOUR, 8 for DAY and 6 for WEEK and MONTH.
+     *
+     * @param timeStamp timestamp to key
+     * @param timescale timescale of the key
+     * @param dest      array to write into
+     * @param offset    index in dest to start writing at
+     * @return number of chars written
+     */
+    public static int timestampToKeyChars(long timeStamp, Timescale timescale, char[] dest, int offset) {
+        Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
+        return TimeKeys.writeDigits(timestampToKey(timeStamp, scale), TimeKeys.width(scale), dest, offset);
+    }
+
     public static long dateKeyStringToTimestamp(String keyedDate, Timescale timescale) {
         Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
 
+        // well formed keys are read straight from their digits
+        ZoneSnapshot zone = ZoneSnapshot.systemDefault();
+        long key = TimeKeys.parseDigits(keyedDate, scale);
+        if (key >= 0) {
+            long timestamp = TimeKeys.decode(key, scale, zone);
+            if (timestamp != TimeKeys.INVALID) {
+                return timestamp;
+            }
+        }
+
         switch (scale) {
             case HOUR:
                 return LocalDateTime.parse(keyedDate, HOUR_FMT)
-                        .atZone(ZoneId.systemDefault())
+                        .atZone(zone.getZone())
                         .toInstant()
                         .toEpochMilli();
 
             case WEEK:
                 // Appends day of week (1 = Monday) so LocalDate can resolve the full date from "YYYYww"
-                return LocalDate.parse(keyedDate + "1",
-                                new DateTimeFormatterBuilder()
-                                        .append(WEEK_FMT)
-                                        .appendValue(ChronoField.DAY_OF_WEEK, 1)
-                                        .toFormatter())
-                        .atStartOfDay(ZoneId.systemDefault())
+                return LocalDate.parse(keyedDate + "1", WEEK_PARSE_FMT)
+                        .atStartOfDay(zone.getZone())
                         .toInstant()
                         .toEpochMilli();
 
             case MONTH:
                 return YearMonth.parse(keyedDate, MONTH_FMT)
                         .atDay(1)
-                        .atStartOfDay(ZoneId.systemDefault())
+                        .atStartOfDay(zone.getZone())
                         .toInstant()
                         .toEpochMilli();
 
             case DAY:
             default:
                 return LocalDate.parse(keyedDate, DAY_FMT)
-                        .atStartOfDay(ZoneId.systemDefault())
+                        .atStartOfDay(zone.getZone())
                         .toInstant()
                         .toEpochMilli();
         }
     }
 
+    /**
+     * Inverse of {@link #timestampToKey(long, Timescale)}.
+     *
+     * @param key       key as a number e.g. 20251103 for DAY
+     * @param timescale timescale of the key
+     * @return timestamp at the start of the keyed bucket
+     * @see #dateKeyStringToTimestamp(String, Timescale)
+     */
+    public static long keyToTimestamp(long key, Timescale timescale) {
+        Timescale scale = (timescale != null) ? timescale : Timescale.DAY;
+        long timestamp = TimeKeys.decode(key, scale, ZoneSnapshot.systemDefault());
+        if (timestamp != TimeKeys.INVALID) {
+            return timestamp;
+        }
+        String keyedDate = key >= 0 ? TimeKeys.appendDigits(new StringBuilder(), key, TimeKeys.width(scale)).toString() : Long.toString(key);
+        return dateKeyStringToTimestamp(keyedDate, scale);
+    }
+
     public static Date csvDateToDateObject(String dateString) {
         Date outDate = null;
         try {
-            SimpleDateFormat fmtOut = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
-            outDate = fmtOut.parse(dateString);
+            outDate = new Date(DateFormatterCache.parse(dateString, DateFormatterCache.CSV_DATE_PATTERN, Locale.US));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -527,18 +662,14 @@ public class AppstronautUtils {
     }
 
     public static String sanitizeStringForCSV(String input) {
-        return input
-                .replace("\"", "")
-                .replace("\'", "")
-                .replace("\\", "");
+        return CharSanitizer.CSV.sanitize(input);
     }
 
+    /**
+     * Reads a whole file onto the heap. Prefer {@link FileBuffers} for large files.
+     */
     public static byte[] getBytes(File file) throws IOException {
-        byte[] bytes = new byte[(int) file.length()];
-        BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file));
-        DataInputStream dis = new DataInputStream(bis);
-        dis.readFully(bytes);
-        return bytes;
+        return FileBuffers.readBytes(file);
     }
 
     public static String getMimeType(Context context, Uri uri) {
@@ -636,19 +767,60 @@ public class AppstronautUtils {
                 .show();
     }
 
+    /**
+     * Clockwise rotation needed to display an image with the EXIF orientation upright. Flipped
+     * orientations are flipped horizontally first, see {@link #isExifOrientationFlipped(int)}.
+     *
+     * @param exifOrientation EXIF orientation tag value
+     * @return 0, 90, 180 or 270
+     */
     public static int getRotationDegrees(int exifOrientation) {
         switch (exifOrientation) {
             case ExifInterface.ORIENTATION_ROTATE_90:
+            case ExifInterface.ORIENTATION_TRANSVERSE:
                 return 90;
             case ExifInterface.ORIENTATION_ROTATE_180:
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
                 return 180;
             case ExifInterface.ORIENTATION_ROTATE_270:
+            case ExifInterface.ORIENTATION_TRANSPOSE:
                 return 270;
             default:
                 return 0;
         }
     }
 
+    /**
+     * @param exifOrientation EXIF orientation tag value
+     * @return true if the image has to be flipped horizontally before it is rotated by
+     * {@link #getRotationDegrees(int)}
+     */
+    public static boolean isExifOrientationFlipped(int exifOrientation) {
+        switch (exifOrientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param exifOrientation EXIF orientation tag value
+     * @return matrix that turns an image with the EXIF orientation upright, before translating it
+     * back into positive coordinates
+     */
+    public static Matrix getOrientationMatrix(int exifOrientation) {
+        Matrix matrix = new Matrix();
+        if (isExifOrientationFlipped(exifOrientation)) {
+            matrix.postScale(-1, 1);
+        }
+        matrix.postRotate(getRotationDegrees(exifOrientation));
+        return matrix;
+    }
+
     /**
      * Compresses an image file scaled down to a maximum width/height of 720 and a jpeg quality of
      * 70. Saves in place.
@@ -669,80 +841,9 @@ public class AppstronautUtils {
      * @param jpegQuality  the jpeg quality to provide to the bitmap compressor
      */
     public static void compressImageFile(File imageFile, int maxDimension, int jpegQuality) {
-        if (imageFile == null || !imageFile.exists()) {
-            Log.e("ImageCompression", "File does not exist.");
-            return;
-        }
-
-        Bitmap bitmap = null;
-        Bitmap rotatedBitmap = null;
-        FileOutputStream fos = null;
-
-        try {
-            // Get original dimensions without loading full image
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(imageFile.getAbsolutePath(), options);
-            int originalWidth = options.outWidth;
-            int originalHeight = options.outHeight;
-
-            // Calculate downsampling factor
-            float sampleSize = 1;
-//            while ((originalWidth / sampleSize > MAX_DIMENSION) || (originalHeight / sampleSize > MAX_DIMENSION)) {
-//                sampleSize *= 2;
-//            }
-            if ((originalWidth > maxDimension) || (originalHeight > maxDimension)) {
-                int largestDimension = Math.max(originalWidth, originalHeight);
-                sampleSize = (float) largestDimension / (float) maxDimension;
-            }
-//            // Load scaled bitmap
-//            options.inSampleSize = sampleSize;
-//            options.inJustDecodeBounds = false;
-            bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath(), null);
-
-            if (sampleSize > 1) {
-                bitmap = Bitmap.createScaledBitmap(bitmap, Math.round(originalWidth / sampleSize), Math.round(originalHeight / sampleSize), true);
-            }
-            // Read EXIF orientation
-            ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
-            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-            int rotationDegrees = getRotationDegrees(orientation);
-
-            // Rotate if necessary
-            if (rotationDegrees != 0) {
-                Matrix matrix = new Matrix();
-                matrix.postRotate(rotationDegrees);
-                rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-            } else {
-                rotatedBitmap = bitmap;
-            }
-
-            // Write to the same file
-            fos = new FileOutputStream(imageFile);
-            if (sampleSize > 1) {
-                // no downsampling performed so assume no compression. We still want to be able to
-                // run this function to make sure EXIF rotation is applied to the image to preserve
-                // it for future uploads/zips etc. Lossless
-                rotatedBitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, fos);
-            } else {
-                rotatedBitmap.compress(Bitmap.CompressFormat.JPEG, 100, fos);
-            }
-
-            fos.flush();
-
-            Log.d("ImageCompression", "Compressed and saved: " + imageFile.getAbsolutePath());
-        } catch (IOException e) {
-            Log.e("ImageCompression", "Error compressing image", e);
-        } finally {
-            try {
-                if (fos != null) fos.close();
-            } catch (IOException ignored) {
-            }
-
-            if (bitmap != null && !bitmap.isRecycled()) bitmap.recycle();
-            if (rotatedBitmap != null && rotatedBitmap != bitmap && !rotatedBitmap.isRecycled())
-                rotatedBitmap.recycle();
-        }
+        new ImageCompressor(maxDimension, jpegQuality)
+                .setReuseBitmaps(false)
+                .compress(imageFile);
     }
 
     public static void spoofOnResume(Activity activity) {
@@ -753,23 +854,9 @@ public class AppstronautUtils {
     }
 
     public static String sanitizeStringForFirebase(String input) {
-        // sanitize illegal key characters
-        String sanitizedString = input;
-        sanitizedString = sanitizedString.replace(".", "");
-        sanitizedString = sanitizedString.replace("$", "");
-        sanitizedString = sanitizedString.replace("[", "");
-        sanitizedString = sanitizedString.replace("]", "");
-        sanitizedString = sanitizedString.replace("#", "");
-        sanitizedString = sanitizedString.replace("/", "");
-        // don't let them mess with the json structure
-        sanitizedString = sanitizedString.replace("{", "");
-        sanitizedString = sanitizedString.replace("}", "");
-        // remove useless characters
-        sanitizedString = sanitizedString.replace("\"", "");
-        sanitizedString = sanitizedString.replace("\'", "");
-        sanitizedString = sanitizedString.trim();
-
-        return sanitizedString;
+        // sanitize illegal key characters, braces so they can't mess with the json structure and
+        // useless quotes
+        return CharSanitizer.FIREBASE_KEY.sanitize(input);
     }
 
     public static String getSystemLocale(Context context) {
@@ -794,17 +881,50 @@ public class AppstronautUtils {
     }
 
     public static Bitmap viewToBitmap(View view) {
-        Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+        return viewToBitmap(view, 1f, null);
+    }
+
+    /**
+     * @param view  view to draw, must be laid out
+     * @param scale factor to render at e.g. 0.25 for a thumbnail, the view is drawn scaled
+     *              rather than drawn at full size and shrunk
+     * @param pool  pool to take the bitmap from, or null for a new one
+     * @return bitmap of the view, hand it back to the pool once done with it
+     */
+    public static Bitmap viewToBitmap(View view, float scale, BitmapPool pool) {
+        Bitmap bitmap = obtainViewBitmap(view, scale, pool);
+        return drawViewToBitmap(view, bitmap);
+    }
+
+    /**
+     * Draws a view into an existing bitmap, scaled to fill it. Bitmaps with the same aspect ratio
+     * as the view keep it.
+     *
+     * @param view   view to draw, must be laid out
+     * @param bitmap mutable bitmap to draw into, e.g. from a {@link BitmapPool}
+     * @return bitmap
+     */
+    public static Bitmap drawViewToBitmap(View view, Bitmap bitmap) {
         Canvas canvas = new Canvas(bitmap);
+        scaleToView(canvas, view, bitmap);
         view.draw(canvas);
         return bitmap;
     }
 
     public static Bitmap getBitmapFromView(View view) {
+        return getBitmapFromView(view, 1f, null);
+    }
+
+    /**
+     * Same as {@link #viewToBitmap(View, float, BitmapPool)} but draws the background drawable
+     * underneath the view first.
+     */
+    public static Bitmap getBitmapFromView(View view, float scale, BitmapPool pool) {
         // define a bitmap with the same size as the view
-        Bitmap returnedBitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_4444);
+        Bitmap returnedBitmap = obtainViewBitmap(view, scale, pool);
         // bind a canvas to it
         Canvas canvas = new Canvas(returnedBitmap);
+        scaleToView(canvas, view, returnedBitmap);
         // set background
         Drawable bgDrawable = view.getBackground();
         if (bgDrawable != null) {
@@ -820,6 +940,24 @@ public class AppstronautUtils {
         return returnedBitmap;
     }
 
+    private static Bitmap obtainViewBitmap(View view, float scale, BitmapPool pool) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("scale must be positive!");
+        }
+        int width = Math.max(1, Math.round(view.getWidth() * scale));
+        int height = Math.max(1, Math.round(view.getHeight() * scale));
+        return pool != null
+                ? pool.get(width, height, Bitmap.Config.ARGB_8888)
+                : Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static void scaleToView(Canvas canvas, View view, Bitmap bitmap) {
+        if (view.getWidth() > 0 && view.getHeight() > 0
+                && (bitmap.getWidth() != view.getWidth() || bitmap.getHeight() != view.getHeight())) {
+            canvas.scale((float) bitmap.getWidth() / view.getWidth(), (float) bitmap.getHeight() / view.getHeight());
+        }
+    }
+
     public static String getNumberString(double number, int decimalPlaces, boolean signed) {
         return getNumberString(number, decimalPlaces, signed, false);
     }
@@ -0,0 +1,155 @@
+package com.appstronautstudios.generalutils;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps bitmaps that are no longer needed so later ones of the same width, height and config can
+ * reuse their memory instead of allocating, e.g. for thumbnails rendered on every scroll stop:
+ * <pre><code>
+ * Bitmap thumbnail = AppstronautUtils.viewToBitmap(view, 0.25f, pool);
+ * // ... once the thumbnail is no longer shown
+ * pool.put(thumbnail);
+ * </code></pre>
+ * The pool holds at most its maximum size in bytes and recycles the least recently returned
+ * bitmaps once it is full. Thread safe.
+ */
+public final class BitmapPool {
+
+    private static BitmapPool sDefault;
+
+    private final long maxSize;
+    // free bitmaps by size and config, most recently returned last
+    private final HashMap<Long, ArrayDeque<Bitmap>> free = new HashMap<>();
+    // every free bitmap, least recently returned first
+    private final LinkedHashMap<Bitmap, Long> order = new LinkedHashMap<>();
+    private long size;
+
+    /**
+     * @param maxSize most bytes of bitmaps to keep
+     */
+    public BitmapPool(long maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * @return shared pool holding up to an eighth of the heap, at most 16 MiB
+     */
+    public static synchronized BitmapPool getDefault() {
+        if (sDefault == null) {
+            sDefault = new BitmapPool(Math.min(Runtime.getRuntime().maxMemory() / 8, 16 * 1024 * 1024));
+        }
+        return sDefault;
+    }
+
+    /**
+     * @return a cleared mutable bitmap of exactly this size and config, reused from the pool if
+     * there is one or newly allocated otherwise. Hand it back with {@link #put(Bitmap)}.
+     */
+    public Bitmap get(int width, int height, Bitmap.Config config) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive!");
+        }
+        if (config == null || config == Bitmap.Config.HARDWARE) {
+            throw new IllegalArgumentException("config must be a software config!");
+        }
+        Bitmap bitmap = poll(key(width, height, config));
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Returns a bitmap to the pool. The caller must not use it afterwards. Bitmaps the pool can't
+     * reuse, or that don't fit, are recycled.
+     *
+     * @param bitmap bitmap to return, ignored if null or already recycled
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        Bitmap.Config config = bitmap.getConfig();
+        long bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || config == null || config == Bitmap.Config.HARDWARE || bytes > maxSize) {
+            bitmap.recycle();
+            return;
+        }
+
+        long key = key(bitmap.getWidth(), bitmap.getHeight(), config);
+        synchronized (this) {
+            if (order.containsKey(bitmap)) {
+                return;
+            }
+            ArrayDeque<Bitmap> bitmaps = free.get(key);
+            if (bitmaps == null) {
+                bitmaps = new ArrayDeque<>();
+                free.put(key, bitmaps);
+            }
+            bitmaps.addLast(bitmap);
+            order.put(bitmap, key);
+            size += bytes;
+            trimTo(maxSize);
+        }
+    }
+
+    /**
+     * Recycles every bitmap in the pool.
+     */
+    public synchronized void clear() {
+        trimTo(0);
+    }
+
+    /**
+     * @return bytes of bitmaps currently in the pool
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    private synchronized Bitmap poll(long key) {
+        ArrayDeque<Bitmap> bitmaps = free.get(key);
+        if (bitmaps == null) {
+            return null;
+        }
+        Bitmap bitmap = bitmaps.pollLast();
+        if (bitmaps.isEmpty()) {
+            free.remove(key);
+        }
+        order.remove(bitmap);
+        size -= bitmap.getAllocationByteCount();
+        return bitmap;
+    }
+
+    private void trimTo(long targetSize) {
+        Iterator<Map.Entry<Bitmap, Long>> iterator = order.entrySet().iterator();
+        while (size > targetSize && iterator.hasNext()) {
+            Map.Entry<Bitmap, Long> eldest = iterator.next();
+            iterator.remove();
+            Bitmap bitmap = eldest.getKey();
+            ArrayDeque<Bitmap> bitmaps = free.get(eldest.getValue());
+            bitmaps.remove(bitmap);
+            if (bitmaps.isEmpty()) {
+                free.remove(eldest.getValue());
+            }
+            size -= bitmap.getAllocationByteCount();
+            bitmap.recycle();
+        }
+    }
+
+    private static long key(int width, int height, Bitmap.Config config) {
+        return (long) width << 36 | (long) height << 8 | config.ordinal();
+    }
+}
@@ -0,0 +1,114 @@
+package com.appstronautstudios.generalutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Removes a fixed set of characters from strings. The set is compiled once into a bitset so each
+ * string is checked in a single pass, and a string with nothing to remove is returned as is
+ * without copying:
+ * <pre><code>
+ * List&lt;String&gt; keys = CharSanitizer.FIREBASE_KEY.sanitizeAll(rawKeys);
+ * </code></pre>
+ * Instances are immutable and thread safe.
+ */
+public final class CharSanitizer {
+
+    /**
+     * Characters Firebase doesn't allow in keys plus braces and quotes, trimmed afterwards.
+     * Backs {@link AppstronautUtils#sanitizeStringForFirebase(String)}.
+     */
+    public static final CharSanitizer FIREBASE_KEY = new CharSanitizer(".$[]#/{}\"'", true);
+
+    /**
+     * Quotes and backslashes. Backs {@link AppstronautUtils#sanitizeStringForCSV(String)}.
+     */
+    public static final CharSanitizer CSV = new CharSanitizer("\"'\\", false);
+
+    private final long[] forbidden;
+    private final boolean trim;
+
+    /**
+     * @param forbiddenChars characters to remove
+     * @param trim           true to also trim whitespace like {@link String#trim()} once the
+     *                       characters are removed
+     */
+    public CharSanitizer(CharSequence forbiddenChars, boolean trim) {
+        if (forbiddenChars == null) {
+            throw new IllegalArgumentException("forbiddenChars shouldn't be null!");
+        }
+        int max = 0;
+        for (int i = 0; i < forbiddenChars.length(); i++) {
+            max = Math.max(max, forbiddenChars.charAt(i));
+        }
+        this.forbidden = new long[(max >> 6) + 1];
+        for (int i = 0; i < forbiddenChars.length(); i++) {
+            char c = forbiddenChars.charAt(i);
+            forbidden[c >> 6] |= 1L << c;
+        }
+        this.trim = trim;
+    }
+
+    /**
+     * @return true if c is removed by this sanitizer
+     */
+    public boolean isForbidden(char c) {
+        int word = c >> 6;
+        return word < forbidden.length && (forbidden[word] & (1L << c)) != 0;
+    }
+
+    /**
+     * @param input string to sanitize
+     * @return input with the forbidden characters removed, the same instance if nothing changed
+     * or null if input is null
+     */
+    public String sanitize(String input) {
+        if (input == null) {
+            return null;
+        }
+
+        int length = input.length();
+        int first = 0;
+        while (first < length && !isForbidden(input.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return trim ? input.trim() : input;
+        }
+
+        // copy the clean prefix then keep only the allowed characters
+        char[] out = new char[length - 1];
+        input.getChars(0, first, out, 0);
+        int size = first;
+        for (int i = first + 1; i < length; i++) {
+            char c = input.charAt(i);
+            if (!isForbidden(c)) {
+                out[size++] = c;
+            }
+        }
+
+        int start = 0;
+        if (trim) {
+            while (start < size && out[start] <= ' ') {
+                start++;
+            }
+            while (size > start && out[size - 1] <= ' ') {
+                size--;
+            }
+        }
+        return new String(out, start, size - start);
+    }
+
+    /**
+     * @param inputs strings to sanitize
+     * @return sanitized strings in iteration order, unchanged strings are the same instances
+     */
+    public List<String> sanitizeAll(Collection<String> inputs) {
+        List<String> sanitized = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            sanitized.add(sanitize(input));
+        }
+        return sanitized;
+    }
+}
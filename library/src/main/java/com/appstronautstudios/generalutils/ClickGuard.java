@@ -17,13 +17,23 @@ package com.appstronautstudios.generalutils;
  */
 
 
-import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LongSparseArray;
 import android.view.View;
 import android.view.View.OnClickListener;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Class used to guard a view to avoid multiple rapid clicks.
@@ -47,6 +57,11 @@ import java.lang.reflect.Field;
  * ClickGuard.newGuard(600); // Create a ClickGuard with 600ms watch period.
  * </code></pre>
  * <p/>
+ * A ClickGuard that doesn't go through the main looper and can be used from any thread:
+ * <pre><code>
+ * ClickGuard.newGuard(600, ClickGuard.Engine.TIMESTAMP);
+ * </code></pre>
+ * <p/>
  * Multiple views can be guarded by a ClickGuard simultaneously:
  * <pre><code>
  * ClickGuard.guard(view1, view2, view3);
@@ -74,6 +89,23 @@ import java.lang.reflect.Field;
  * <pre><code>
  * button.setOnClickListener(ClickGuard.wrap(onClickListener));
  * </code></pre>
+ * <p/>
+ * Besides ignoring clicks for a watch period, guards can debounce, throttle or rate limit. They
+ * work with all of the above and with events that aren't clicks:
+ * <pre><code>
+ * ClickGuard search = ClickGuard.newDebounce(300);
+ * search.offer(() -&gt; {
+ *     runSearch(query);
+ *     return true;
+ * });
+ * </code></pre>
+ * <p/>
+ * Each guard can count the events it fires and ignores and time the fired ones:
+ * <pre><code>
+ * ClickGuard.Metrics metrics = guard.enableMetrics();
+ * // later
+ * Log.d(TAG, "clicks: " + metrics.snapshot());
+ * </code></pre>
  */
 public abstract class ClickGuard {
 
@@ -82,6 +114,25 @@ public abstract class ClickGuard {
      */
     public static final long DEFAULT_WATCH_PERIOD_MILLIS = 1000L;
 
+    /**
+     * How a ClickGuard keeps track of its watch period.
+     */
+    public enum Engine {
+        /**
+         * Posts a delayed message to the main looper on each watch and looks for it in the
+         * message queue to tell whether it's watching. Main thread only.
+         */
+        HANDLER,
+        /**
+         * Keeps the time the watch period ends in a single atomic field compared against
+         * {@link SystemClock#uptimeMillis()}. Touches no message queue and works from any thread,
+         * an event claims the watch period before it fires so racing threads can't both fire.
+         */
+        TIMESTAMP
+    }
+
+    private volatile Metrics mMetrics;
+
     private ClickGuard() {
         // private
     }
@@ -105,7 +156,57 @@ public abstract class ClickGuard {
      * @return The created ClickGuard instance.
      */
     public static ClickGuard newGuard(long watchPeriodMillis) {
-        return new ClickGuardImpl(watchPeriodMillis);
+        return newGuard(watchPeriodMillis, Engine.HANDLER);
+    }
+
+    /**
+     * Utility method. Create a ClickGuard with specific watch period: {@code watchPeriodMillis},
+     * backed by a specific {@link Engine}.
+     *
+     * @return The created ClickGuard instance.
+     */
+    public static ClickGuard newGuard(long watchPeriodMillis, Engine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine shouldn't be null!");
+        }
+        return engine == Engine.TIMESTAMP
+                ? new TimestampClickGuard(watchPeriodMillis)
+                : new ClickGuardImpl(watchPeriodMillis);
+    }
+
+    /**
+     * Utility method. Create a ClickGuard that holds each event back until none have arrived for
+     * {@code periodMillis}, then fires only the last one on the main thread. Earlier events are
+     * dropped. Suits search as you type.
+     *
+     * @return The created ClickGuard instance.
+     */
+    public static ClickGuard newDebounce(long periodMillis) {
+        return new DebounceClickGuard(periodMillis);
+    }
+
+    /**
+     * Utility method. Create a ClickGuard that fires the first event of a burst at once, then
+     * watches for {@code periodMillis} and fires the last event that arrived meanwhile on the main
+     * thread when it ends. Suits refresh buttons.
+     *
+     * @return The created ClickGuard instance.
+     */
+    public static ClickGuard newThrottle(long periodMillis) {
+        return new ThrottleClickGuard(periodMillis);
+    }
+
+    /**
+     * Utility method. Create a ClickGuard that lets through bursts of up to {@code capacity}
+     * events, then one more per {@code refillPeriodMillis}. Events beyond that are dropped.
+     *
+     * @return The created ClickGuard instance.
+     */
+    public static ClickGuard newRateLimiter(int capacity, long refillPeriodMillis) {
+        if (capacity <= 0 || refillPeriodMillis <= 0) {
+            throw new IllegalArgumentException("capacity and refillPeriodMillis must be positive!");
+        }
+        return new RateLimitClickGuard(capacity, refillPeriodMillis);
     }
 
     /**
@@ -245,6 +346,29 @@ public abstract class ClickGuard {
         return ListenerGetter.get(view);
     }
 
+    /**
+     * Utility method. Create a {@link Registry} whose guards have the default watch period
+     * {@link #DEFAULT_WATCH_PERIOD_MILLIS}.
+     *
+     * @return The created Registry.
+     */
+    public static Registry newRegistry() {
+        return new Registry(DEFAULT_WATCH_PERIOD_MILLIS, Engine.HANDLER, Registry.DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Utility method. Create a {@link Registry} whose guards have a specific watch period and
+     * engine, keeping at most {@code maxKeys} keys.
+     *
+     * @return The created Registry.
+     */
+    public static Registry newRegistry(long watchPeriodMillis, Engine engine, int maxKeys) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine shouldn't be null!");
+        }
+        return new Registry(watchPeriodMillis, engine, maxKeys);
+    }
+
     // ---------------------------------------------------------------------------------------------
     //                                  Utility methods end
     // ---------------------------------------------------------------------------------------------
@@ -257,15 +381,7 @@ public abstract class ClickGuard {
      * @see #addAll(View, View...)
      */
     public ClickGuard add(View view) {
-        if (view == null) {
-            throw new IllegalArgumentException("View shouldn't be null!");
-        }
-        OnClickListener listener = retrieveOnClickListener(view);
-        if (listener == null) {
-            throw new IllegalStateException("Haven't set an OnClickListener to View (id: 0x"
-                    + Integer.toHexString(view.getId()) + ")!");
-        }
-        view.setOnClickListener(wrapOnClickListener(listener));
+        view.setOnClickListener(wrapOnClickListener(requireOnClickListener(view)));
         return this;
     }
 
@@ -286,19 +402,39 @@ public abstract class ClickGuard {
     }
 
     /**
-     * Like {@link #add(View)}. Let a series of views to be guarded by this ClickGuard.
+     * Like {@link #add(View)}. Let a series of views to be guarded by this ClickGuard. Views
+     * sharing an OnClickListener also share the GuardedOnClickListener wrapping it.
      *
      * @param views The views to be guarded.
      * @return This ClickGuard instance.
      * @see #add(View)
      */
     public ClickGuard addAll(Iterable<View> views) {
+        IdentityHashMap<OnClickListener, GuardedOnClickListener> wrappers = new IdentityHashMap<>();
         for (View v : views) {
-            add(v);
+            OnClickListener listener = requireOnClickListener(v);
+            GuardedOnClickListener wrapper = wrappers.get(listener);
+            if (wrapper == null) {
+                wrapper = wrapOnClickListener(listener);
+                wrappers.put(listener, wrapper);
+            }
+            v.setOnClickListener(wrapper);
         }
         return this;
     }
 
+    private static OnClickListener requireOnClickListener(View view) {
+        if (view == null) {
+            throw new IllegalArgumentException("View shouldn't be null!");
+        }
+        OnClickListener listener = retrieveOnClickListener(view);
+        if (listener == null) {
+            throw new IllegalStateException("Haven't set an OnClickListener to View (id: 0x"
+                    + Integer.toHexString(view.getId()) + ")!");
+        }
+        return listener;
+    }
+
     /**
      * Let the provided {@link OnClickListener} to be a {@link GuardedOnClickListener}
      * which will be guarded by this ClickGuard.
@@ -333,6 +469,99 @@ public abstract class ClickGuard {
      */
     public abstract boolean isWatching();
 
+    /**
+     * Hands an event to the Guard, which fires or drops it exactly once. The default is to drop it
+     * while watching, otherwise fire it and watch if it asks to. Debounce and throttle guards may
+     * hold it back and fire it later on the main thread.
+     *
+     * @param event The event to be guarded.
+     */
+    public void offer(Event event) {
+        if (event == null) {
+            throw new IllegalArgumentException("event shouldn't be null!");
+        }
+        if (isWatching()) {
+            drop(event);
+            return;
+        }
+        if (fire(event)) {
+            watch();
+        }
+    }
+
+    /**
+     * Starts recording how many events this Guard fires and drops, and how long fired events
+     * take to run. Off by default.
+     *
+     * @return The metrics of this Guard, the same instance if already enabled.
+     */
+    public synchronized Metrics enableMetrics() {
+        if (mMetrics == null) {
+            mMetrics = new Metrics();
+        }
+        return mMetrics;
+    }
+
+    /**
+     * Stops recording metrics.
+     */
+    public synchronized void disableMetrics() {
+        mMetrics = null;
+    }
+
+    /**
+     * @return The metrics of this Guard, or null if not enabled.
+     */
+    public Metrics getMetrics() {
+        return mMetrics;
+    }
+
+    // true if offer may keep an event after returning and fire or drop it later
+    boolean holdsEvents() {
+        return false;
+    }
+
+    // every guard fires and drops events through these so metrics see all of them
+    final boolean fire(Event event) {
+        Metrics metrics = mMetrics;
+        if (metrics == null) {
+            return event.fire();
+        }
+        long start = System.nanoTime();
+        try {
+            return event.fire();
+        } finally {
+            metrics.recordAccepted(System.nanoTime() - start);
+        }
+    }
+
+    final void drop(Event event) {
+        Metrics metrics = mMetrics;
+        if (metrics != null) {
+            metrics.recordIgnored();
+        }
+        event.drop();
+    }
+
+    /**
+     * An event guarded by {@link #offer(Event)}, a click or anything else e.g. a text change or
+     * network trigger.
+     */
+    public interface Event {
+        /**
+         * Called when the event is allowed.
+         *
+         * @return If {@code true} is returned, the Guard starts watching.
+         */
+        boolean fire();
+
+        /**
+         * Called when the event is ignored, or replaced by a later one.
+         */
+        default void drop() {
+        }
+    }
+
     private static class ClickGuardImpl extends ClickGuard {
         private static final int WATCHING = 0;
         private final Handler mHandler = new Handler(Looper.getMainLooper());
@@ -358,12 +587,452 @@ public abstract class ClickGuard {
         }
     }
 
+    private static class TimestampClickGuard extends ClickGuard {
+        private final long mWatchPeriodMillis;
+        // uptime the current watch period ends at, 0 when resting
+        private final AtomicLong mDeadline = new AtomicLong();
+
+        TimestampClickGuard(long watchPeriodMillis) {
+            mWatchPeriodMillis = watchPeriodMillis;
+        }
+
+        @Override
+        public void offer(Event event) {
+            if (event == null) {
+                throw new IllegalArgumentException("event shouldn't be null!");
+            }
+            long now = SystemClock.uptimeMillis();
+            long deadline = mDeadline.get();
+            // claim the watch period before firing, whoever loses the race drops its event
+            long claimed = now + mWatchPeriodMillis;
+            if (now < deadline || !mDeadline.compareAndSet(deadline, claimed)) {
+                drop(event);
+                return;
+            }
+            boolean watch = false;
+            try {
+                watch = fire(event);
+            } finally {
+                if (!watch) {
+                    // hand the period back unless rest() or watch() moved it meanwhile
+                    mDeadline.compareAndSet(claimed, deadline);
+                }
+            }
+        }
+
+        @Override
+        public void watch() {
+            mDeadline.set(SystemClock.uptimeMillis() + mWatchPeriodMillis);
+        }
+
+        @Override
+        public void rest() {
+            mDeadline.set(0);
+        }
+
+        @Override
+        public boolean isWatching() {
+            return SystemClock.uptimeMillis() < mDeadline.get();
+        }
+    }
+
+    // Fires the last event once none have arrived for the period.
+    private static class DebounceClickGuard extends ClickGuard {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private final long mPeriodMillis;
+        private final Runnable mFirePending = this::firePending;
+        private Event mPending;
+
+        DebounceClickGuard(long periodMillis) {
+            mPeriodMillis = periodMillis;
+        }
+
+        @Override
+        boolean holdsEvents() {
+            return true;
+        }
+
+        @Override
+        public void offer(Event event) {
+            if (event == null) {
+                throw new IllegalArgumentException("event shouldn't be null!");
+            }
+            Event replaced;
+            synchronized (this) {
+                replaced = mPending;
+                mPending = event;
+                schedule();
+            }
+            if (replaced != null) {
+                drop(replaced);
+            }
+        }
+
+        @Override
+        public synchronized void watch() {
+            // push the pending event back
+            if (mPending != null) {
+                schedule();
+            }
+        }
+
+        @Override
+        public void rest() {
+            Event dropped;
+            synchronized (this) {
+                dropped = mPending;
+                mPending = null;
+                mHandler.removeCallbacks(mFirePending);
+            }
+            if (dropped != null) {
+                drop(dropped);
+            }
+        }
+
+        @Override
+        public synchronized boolean isWatching() {
+            return mPending != null;
+        }
+
+        private void schedule() {
+            mHandler.removeCallbacks(mFirePending);
+            mHandler.postDelayed(mFirePending, mPeriodMillis);
+        }
+
+        private void firePending() {
+            Event event;
+            synchronized (this) {
+                event = mPending;
+                mPending = null;
+            }
+            if (event != null) {
+                fire(event);
+            }
+        }
+    }
+
+    // Fires the first event of a burst at once and the last one when the period ends.
+    private static class ThrottleClickGuard extends ClickGuard {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private final long mPeriodMillis;
+        private final Runnable mEndPeriod = this::endPeriod;
+        private long mDeadline;
+        private Event mTrailing;
+
+        ThrottleClickGuard(long periodMillis) {
+            mPeriodMillis = periodMillis;
+        }
+
+        @Override
+        boolean holdsEvents() {
+            return true;
+        }
+
+        @Override
+        public void offer(Event event) {
+            if (event == null) {
+                throw new IllegalArgumentException("event shouldn't be null!");
+            }
+            Event replaced = null;
+            boolean leading;
+            synchronized (this) {
+                leading = SystemClock.uptimeMillis() >= mDeadline;
+                if (!leading) {
+                    replaced = mTrailing;
+                    mTrailing = event;
+                }
+            }
+            if (replaced != null) {
+                drop(replaced);
+            }
+            if (leading && fire(event)) {
+                watch();
+            }
+        }
+
+        @Override
+        public synchronized void watch() {
+            mDeadline = SystemClock.uptimeMillis() + mPeriodMillis;
+            mHandler.removeCallbacks(mEndPeriod);
+            mHandler.postAtTime(mEndPeriod, mDeadline);
+        }
+
+        @Override
+        public void rest() {
+            Event dropped;
+            synchronized (this) {
+                dropped = mTrailing;
+                mTrailing = null;
+                mDeadline = 0;
+                mHandler.removeCallbacks(mEndPeriod);
+            }
+            if (dropped != null) {
+                drop(dropped);
+            }
+        }
+
+        @Override
+        public synchronized boolean isWatching() {
+            return SystemClock.uptimeMillis() < mDeadline;
+        }
+
+        private void endPeriod() {
+            Event trailing;
+            synchronized (this) {
+                trailing = mTrailing;
+                mTrailing = null;
+                mDeadline = 0;
+            }
+            // the trailing event starts a period of its own
+            if (trailing != null && fire(trailing)) {
+                watch();
+            }
+        }
+    }
+
+    // Token bucket, allows bursts of up to capacity events then one per refill period.
+    private static class RateLimitClickGuard extends ClickGuard {
+        private final int mCapacity;
+        private final long mRefillPeriodMillis;
+        private double mTokens;
+        private long mRefilledAt;
+
+        RateLimitClickGuard(int capacity, long refillPeriodMillis) {
+            mCapacity = capacity;
+            mRefillPeriodMillis = refillPeriodMillis;
+            mTokens = capacity;
+            mRefilledAt = SystemClock.uptimeMillis();
+        }
+
+        @Override
+        public void offer(Event event) {
+            if (event == null) {
+                throw new IllegalArgumentException("event shouldn't be null!");
+            }
+            boolean allowed;
+            synchronized (this) {
+                refill();
+                allowed = mTokens >= 1;
+                if (allowed) {
+                    mTokens -= 1;
+                }
+            }
+            if (!allowed) {
+                drop(event);
+            } else if (!fire(event)) {
+                // didn't ask to be counted, hand the token back
+                synchronized (this) {
+                    mTokens = Math.min(mCapacity, mTokens + 1);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void watch() {
+            refill();
+            mTokens = Math.max(0, mTokens - 1);
+        }
+
+        @Override
+        public synchronized void rest() {
+            mTokens = mCapacity;
+            mRefilledAt = SystemClock.uptimeMillis();
+        }
+
+        @Override
+        public synchronized boolean isWatching() {
+            refill();
+            return mTokens < 1;
+        }
+
+        private void refill() {
+            long now = SystemClock.uptimeMillis();
+            mTokens = Math.min(mCapacity, mTokens + (double) (now - mRefilledAt) / mRefillPeriodMillis);
+            mRefilledAt = now;
+        }
+    }
+
+    /**
+     * Counts of fired and dropped events and a histogram of how long fired events take, e.g. the
+     * wrapped onClick of a {@link GuardedOnClickListener}. Counters are striped so recording
+     * from several threads doesn't contend. The histogram is log-linear like an HDR histogram:
+     * each power of two is split into {@value #SUB_BUCKETS} buckets, so recorded times are within
+     * about 6% of the real ones.
+     */
+    public static final class Metrics {
+        static final int SUB_BUCKETS = 16;
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final LongAdder mAccepted = new LongAdder();
+        private final LongAdder mIgnored = new LongAdder();
+        private final LongAdder mTotalNanos = new LongAdder();
+        private final AtomicLong mMaxNanos = new AtomicLong();
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+        Metrics() {
+        }
+
+        void recordAccepted(long nanos) {
+            nanos = Math.max(0, nanos);
+            mAccepted.increment();
+            mTotalNanos.add(nanos);
+            mMaxNanos.accumulateAndGet(nanos, Math::max);
+            mBuckets.incrementAndGet(bucketIndex(nanos));
+        }
+
+        void recordIgnored() {
+            mIgnored.increment();
+        }
+
+        public long getAcceptedCount() {
+            return mAccepted.sum();
+        }
+
+        public long getIgnoredCount() {
+            return mIgnored.sum();
+        }
+
+        /**
+         * Sets every count back to 0. Events recorded meanwhile may be lost.
+         */
+        public void reset() {
+            mAccepted.reset();
+            mIgnored.reset();
+            mTotalNanos.reset();
+            mMaxNanos.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets.set(i, 0);
+            }
+        }
+
+        /**
+         * @return A copy of the current counts to export, not updated afterwards.
+         */
+        public Snapshot snapshot() {
+            long[] buckets = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = mBuckets.get(i);
+            }
+            return new Snapshot(mAccepted.sum(), mIgnored.sum(), mTotalNanos.sum(), mMaxNanos.get(), buckets);
+        }
+
+        static int bucketIndex(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int shift = exponent - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) - SUB_BUCKETS);
+        }
+
+        static long bucketLowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        }
+    }
+
+    /**
+     * Point in time copy of {@link Metrics}. Times are in nanoseconds.
+     */
+    public static final class Snapshot {
+        private final long mAcceptedCount;
+        private final long mIgnoredCount;
+        private final long mTotalNanos;
+        private final long mMaxNanos;
+        private final long[] mBuckets;
+        private final long mHistogramCount;
+
+        Snapshot(long acceptedCount, long ignoredCount, long totalNanos, long maxNanos, long[] buckets) {
+            mAcceptedCount = acceptedCount;
+            mIgnoredCount = ignoredCount;
+            mTotalNanos = totalNanos;
+            mMaxNanos = maxNanos;
+            mBuckets = buckets;
+            long count = 0;
+            for (long bucket : buckets) {
+                count += bucket;
+            }
+            mHistogramCount = count;
+        }
+
+        public long getAcceptedCount() {
+            return mAcceptedCount;
+        }
+
+        public long getIgnoredCount() {
+            return mIgnoredCount;
+        }
+
+        public long getMeanNanos() {
+            return mAcceptedCount > 0 ? mTotalNanos / mAcceptedCount : 0;
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * @param percentile e.g. 50 for the median or 99
+         * @return Time at most {@code percentile}% of fired events took, to the histogram's
+         * precision.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (mHistogramCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(mHistogramCount * Math.min(100, Math.max(0, percentile)) / 100));
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank) {
+                    // report the top of the bucket but never more than was recorded
+                    long upper = i + 1 < mBuckets.length ? Metrics.bucketLowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(upper, mMaxNanos);
+                }
+            }
+            return mMaxNanos;
+        }
+
+        /**
+         * Passes each non empty histogram bucket to the listener, e.g. to forward to telemetry.
+         */
+        public void forEachBucket(BucketListener listener) {
+            for (int i = 0; i < mBuckets.length; i++) {
+                if (mBuckets[i] != 0) {
+                    long upper = i + 1 < mBuckets.length ? Metrics.bucketLowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                    listener.onBucket(Metrics.bucketLowerBound(i), upper, mBuckets[i]);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "accepted " + mAcceptedCount + ", ignored " + mIgnoredCount + ", mean " + getMeanNanos()
+                    + "ns, p50 " + getPercentileNanos(50) + "ns, p99 " + getPercentileNanos(99)
+                    + "ns, max " + mMaxNanos + "ns";
+        }
+    }
+
+    public interface BucketListener {
+        /**
+         * @param minNanos Shortest time in the bucket.
+         * @param maxNanos Longest time in the bucket.
+         * @param count    Number of fired events in the bucket.
+         */
+        void onBucket(long minNanos, long maxNanos, long count);
+    }
+
     /**
      * OnClickListener which can avoid multiple rapid clicks.
      */
     public static abstract class GuardedOnClickListener implements OnClickListener {
         private ClickGuard mGuard;
         private OnClickListener mWrapped;
+        private final ClickEvent mEvent = new ClickEvent(null);
 
         public GuardedOnClickListener() {
             this(DEFAULT_WATCH_PERIOD_MILLIS);
@@ -384,18 +1053,40 @@ public abstract class ClickGuard {
 
         @Override
         final public void onClick(View v) {
-            if (mGuard.isWatching()) {
-                // Guard is guarding, can't do anything.
-                onIgnored();
+            if (mGuard.holdsEvents()) {
+                // held back clicks outlive this call, each needs its own view
+                mGuard.offer(new ClickEvent(v));
                 return;
             }
-            // Guard is relaxing. Run!
-            if (mWrapped != null) {
-                mWrapped.onClick(v);
+            // fired or dropped before offer returns, so one event serves every click
+            mEvent.mView = v;
+            try {
+                mGuard.offer(mEvent);
+            } finally {
+                mEvent.mView = null;
             }
-            if (onClicked()) {
-                // Guard becomes vigilant.
-                mGuard.watch();
+        }
+
+        private class ClickEvent implements Event {
+            View mView;
+
+            ClickEvent(View view) {
+                mView = view;
+            }
+
+            @Override
+            public boolean fire() {
+                // Guard is relaxing. Run!
+                if (mWrapped != null) {
+                    mWrapped.onClick(mView);
+                }
+                return onClicked();
+            }
+
+            @Override
+            public void drop() {
+                // Guard is guarding, can't do anything.
+                onIgnored();
             }
         }
 
@@ -418,6 +1109,241 @@ public abstract class ClickGuard {
         }
     }
 
+    /**
+     * Shares ClickGuards between views by key, e.g. by item ID in a RecyclerView:
+     * <pre><code>
+     * public void onBindViewHolder(ViewHolder holder, int position) {
+     *     registry.bind(holder.itemView, getItemId(position), onItemClickListener);
+     * }
+     * </code></pre>
+     * Every view bound to a key is guarded by that key's guard, so the guard keeps watching when
+     * the view is recycled and rebound. The wrapper listener for a key is created once and reused
+     * on every rebind with the same listener, so rebinding allocates no guards or listeners. Item
+     * IDs go through the long overloads, which key a {@link LongSparseArray} and don't box. Keys
+     * not bound for a while are dropped once there are more than the maximum. Main thread only.
+     * <p/>
+     * Use one kind of key per Registry. Ints such as view types widen to the long overloads, so
+     * view type 0 and item ID 0 would share a guard. Group by view type in a Registry of its own.
+     */
+    public static final class Registry {
+        /**
+         * Default most keys kept.
+         */
+        public static final int DEFAULT_MAX_KEYS = 256;
+
+        private final long mWatchPeriodMillis;
+        private final Engine mEngine;
+        private final int mMaxKeys;
+        private final HashMap<Object, Entry> mEntries = new HashMap<>();
+        private final LongSparseArray<Entry> mLongEntries = new LongSparseArray<>();
+        // least recently bound key first, shared by both maps
+        private Entry mHead;
+        private Entry mTail;
+
+        private static class Entry {
+            final ClickGuard mGuard;
+            // null for long keys
+            final Object mKey;
+            final long mLongKey;
+            GuardedOnClickListener mWrapper;
+            Entry mPrev;
+            Entry mNext;
+
+            Entry(ClickGuard guard, Object key, long longKey) {
+                mGuard = guard;
+                mKey = key;
+                mLongKey = longKey;
+            }
+        }
+
+        Registry(long watchPeriodMillis, Engine engine, int maxKeys) {
+            mWatchPeriodMillis = watchPeriodMillis;
+            mEngine = engine;
+            mMaxKeys = Math.max(1, maxKeys);
+        }
+
+        /**
+         * Guards a view with the guard of a key, replacing whatever listener it had.
+         *
+         * @param view     The view to be guarded.
+         * @param key      Key of the guard e.g. a tag or enum constant.
+         * @param listener The listener to be wrapped.
+         * @return The GuardedOnClickListener set on the view.
+         */
+        public GuardedOnClickListener bind(View view, Object key, OnClickListener listener) {
+            if (view == null) {
+                throw new IllegalArgumentException("View shouldn't be null!");
+            }
+            GuardedOnClickListener wrapper = wrap(key, listener);
+            view.setOnClickListener(wrapper);
+            return wrapper;
+        }
+
+        /**
+         * Guards a view with the guard of an item ID, replacing whatever listener it had.
+         *
+         * @param view     The view to be guarded.
+         * @param key      Key of the guard e.g. an item ID.
+         * @param listener The listener to be wrapped.
+         * @return The GuardedOnClickListener set on the view.
+         */
+        public GuardedOnClickListener bind(View view, long key, OnClickListener listener) {
+            if (view == null) {
+                throw new IllegalArgumentException("View shouldn't be null!");
+            }
+            GuardedOnClickListener wrapper = wrap(key, listener);
+            view.setOnClickListener(wrapper);
+            return wrapper;
+        }
+
+        /**
+         * @param key      Key of the guard e.g. a tag or enum constant.
+         * @param listener The listener to be wrapped.
+         * @return A GuardedOnClickListener guarded by the key's guard, the same instance as last
+         * time if the listener is the same.
+         */
+        public GuardedOnClickListener wrap(Object key, OnClickListener listener) {
+            return wrap(entry(key), listener);
+        }
+
+        /**
+         * @param key      Key of the guard e.g. an item ID.
+         * @param listener The listener to be wrapped.
+         * @return A GuardedOnClickListener guarded by the key's guard, the same instance as last
+         * time if the listener is the same.
+         */
+        public GuardedOnClickListener wrap(long key, OnClickListener listener) {
+            return wrap(entry(key), listener);
+        }
+
+        private static GuardedOnClickListener wrap(Entry entry, OnClickListener listener) {
+            if (entry.mWrapper == null || entry.mWrapper.mWrapped != listener) {
+                entry.mWrapper = entry.mGuard.wrapOnClickListener(listener);
+            }
+            return entry.mWrapper;
+        }
+
+        /**
+         * @param key Key of the guard e.g. a tag or enum constant.
+         * @return The guard shared by every view bound to this key, created if needed.
+         */
+        public ClickGuard getGuard(Object key) {
+            return entry(key).mGuard;
+        }
+
+        /**
+         * @param key Key of the guard e.g. an item ID.
+         * @return The guard shared by every view bound to this key, created if needed.
+         */
+        public ClickGuard getGuard(long key) {
+            return entry(key).mGuard;
+        }
+
+        /**
+         * Forgets a key. Views still bound to it keep their listener.
+         */
+        public void remove(Object key) {
+            Entry entry = mEntries.remove(key);
+            if (entry != null) {
+                unlink(entry);
+            }
+        }
+
+        /**
+         * Forgets an item ID. Views still bound to it keep their listener.
+         */
+        public void remove(long key) {
+            Entry entry = mLongEntries.get(key);
+            if (entry != null) {
+                mLongEntries.remove(key);
+                unlink(entry);
+            }
+        }
+
+        public void clear() {
+            mEntries.clear();
+            mLongEntries.clear();
+            mHead = null;
+            mTail = null;
+        }
+
+        /**
+         * @return Number of keys kept.
+         */
+        public int size() {
+            return mEntries.size() + mLongEntries.size();
+        }
+
+        private Entry entry(Object key) {
+            if (key == null) {
+                throw new IllegalArgumentException("key shouldn't be null!");
+            }
+            Entry entry = mEntries.get(key);
+            if (entry == null) {
+                entry = new Entry(newGuard(mWatchPeriodMillis, mEngine), key, 0);
+                mEntries.put(key, entry);
+                trimToMax();
+            } else {
+                unlink(entry);
+            }
+            link(entry);
+            return entry;
+        }
+
+        private Entry entry(long key) {
+            Entry entry = mLongEntries.get(key);
+            if (entry == null) {
+                entry = new Entry(newGuard(mWatchPeriodMillis, mEngine), null, key);
+                mLongEntries.put(key, entry);
+                trimToMax();
+            } else {
+                unlink(entry);
+            }
+            link(entry);
+            return entry;
+        }
+
+        // drops the least recently bound keys, called with the new key not linked yet
+        private void trimToMax() {
+            while (size() > mMaxKeys && mHead != null) {
+                Entry eldest = mHead;
+                unlink(eldest);
+                if (eldest.mKey != null) {
+                    mEntries.remove(eldest.mKey);
+                } else {
+                    mLongEntries.remove(eldest.mLongKey);
+                }
+            }
+        }
+
+        // appends as the most recently bound key
+        private void link(Entry entry) {
+            entry.mPrev = mTail;
+            entry.mNext = null;
+            if (mTail != null) {
+                mTail.mNext = entry;
+            } else {
+                mHead = entry;
+            }
+            mTail = entry;
+        }
+
+        private void unlink(Entry entry) {
+            if (entry.mPrev != null) {
+                entry.mPrev.mNext = entry.mNext;
+            } else if (mHead == entry) {
+                mHead = entry.mNext;
+            }
+            if (entry.mNext != null) {
+                entry.mNext.mPrev = entry.mPrev;
+            } else if (mTail == entry) {
+                mTail = entry.mPrev;
+            }
+            entry.mPrev = null;
+            entry.mNext = null;
+        }
+    }
+
     // Inner GuardedOnClickListener implementation.
     static class InnerGuardedOnClickListener extends GuardedOnClickListener {
         InnerGuardedOnClickListener(OnClickListener onClickListener, ClickGuard guard) {
@@ -433,17 +1359,23 @@ public abstract class ClickGuard {
     }
 
     /**
-     * Class used for retrieve OnClickListener from a View.
+     * Class used for retrieve OnClickListener from a View. The fields are looked up once and
+     * read through cached MethodHandles. If they can't be resolved every View reads as having no
+     * listener, so guarding it fails with an IllegalStateException rather than breaking the class.
      */
     static abstract class ListenerGetter {
 
-        private static ListenerGetter IMPL;
+        private static final String TAG = "ClickGuard";
+        private static final String LISTENER_INFO_CLASS = "android.view.View$ListenerInfo";
 
-        static {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
-                IMPL = new ListenerGetterIcs();
-            } else {
-                IMPL = new ListenerGetterBase();
+        private static final ListenerGetter IMPL = create();
+
+        private static ListenerGetter create() {
+            try {
+                return new ListenerGetterHandles();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Can't resolve the listener fields, retrieveOnClickListener will return null", e);
+                return new ListenerGetterNone();
             }
         }
 
@@ -453,7 +1385,9 @@ public abstract class ClickGuard {
 
         static Field getField(Class clazz, String fieldName) {
             try {
-                return clazz.getDeclaredField(fieldName);
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field;
             } catch (NoSuchFieldException ignored) {
                 throw new RuntimeException("Can't get " + fieldName + " of " + clazz.getName());
             }
@@ -467,45 +1401,44 @@ public abstract class ClickGuard {
             }
         }
 
-        static Object getFieldValue(Field field, Object object) {
-            try {
-                return field.get(object);
-            } catch (IllegalAccessException ignored) {
-            }
-            return null;
-        }
-
         abstract OnClickListener getOnClickListener(View view);
 
-        private static class ListenerGetterBase extends ListenerGetter {
-            private Field mOnClickListenerField;
-
-            ListenerGetterBase() {
-                mOnClickListenerField = getField(View.class, "mOnClickListener");
-            }
-
+        // used when the fields are missing, e.g. renamed or blocked by a future release
+        private static class ListenerGetterNone extends ListenerGetter {
             @Override
             public OnClickListener getOnClickListener(View view) {
-                return (OnClickListener) getFieldValue(mOnClickListenerField, view);
+                return null;
             }
         }
 
-        private static class ListenerGetterIcs extends ListenerGetter {
-            private Field mListenerInfoField;
-            private Field mOnClickListenerField;
+        // getters unreflected once, each read is a direct field load with no access checks
+        private static class ListenerGetterHandles extends ListenerGetter {
+            private final MethodHandle mListenerInfoGetter;
+            private final MethodHandle mOnClickListenerGetter;
 
-            ListenerGetterIcs() {
-                mListenerInfoField = getField(View.class, "mListenerInfo");
-                mListenerInfoField.setAccessible(true);
-                mOnClickListenerField = getField("android.view.View$ListenerInfo", "mOnClickListener");
+            ListenerGetterHandles() {
+                try {
+                    MethodHandles.Lookup lookup = MethodHandles.lookup();
+                    mListenerInfoGetter = lookup.unreflectGetter(getField(View.class, "mListenerInfo"))
+                            .asType(MethodType.methodType(Object.class, View.class));
+                    mOnClickListenerGetter = lookup.unreflectGetter(getField(LISTENER_INFO_CLASS, "mOnClickListener"))
+                            .asType(MethodType.methodType(OnClickListener.class, Object.class));
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("Can't access listener fields", e);
+                }
             }
 
             @Override
             public OnClickListener getOnClickListener(View view) {
-                Object listenerInfo = getFieldValue(mListenerInfoField, view);
-                return listenerInfo != null ?
-                        (OnClickListener) getFieldValue(mOnClickListenerField, listenerInfo) : null;
+                try {
+                    Object listenerInfo = (Object) mListenerInfoGetter.invokeExact(view);
+                    return listenerInfo != null ? (OnClickListener) mOnClickListenerGetter.invokeExact(listenerInfo) : null;
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable ignored) {
+                    return null;
+                }
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.appstronautstudios.generalutils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streams CSV rows out of a {@link Reader} or {@link InputStream} through one reusable char
+ * buffer, so an import of millions of lines runs in bounded memory:
+ * <pre><code>
+ * try (CsvReader csv = new CsvReader(inputStream)) {
+ *     csv.read(new CsvReader.Listener() {
+ *         public void onRow(CsvReader row) {
+ *             long timestamp = row.getDate(0);
+ *             String name = row.getString(1);
+ *         }
+ *
+ *         public void onMalformedRow(long rowNumber, String reason) {
+ *             Log.w(TAG, "skipped row " + rowNumber + ": " + reason);
+ *         }
+ *     }, 0);
+ * }
+ * </code></pre>
+ * Cells are read the way {@link CsvWriter} and most spreadsheets write them: separated by the
+ * separator, optionally wrapped in double quotes with "" for a literal quote, rows ending in \n or
+ * \r\n. Date cells in the {@link AppstronautUtils#timestampToCsvDate(long)} format are parsed
+ * straight out of the buffer into epoch millis. Not thread safe.
+ */
+public final class CsvReader implements Closeable {
+
+    /**
+     * Returned by {@link #getDate(int)} for a cell that isn't a date.
+     */
+    public static final long INVALID_DATE = Long.MIN_VALUE;
+
+    /**
+     * Default longest row in chars, longer rows are reported as malformed and skipped.
+     */
+    public static final int DEFAULT_MAX_ROW_LENGTH = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DATE_LENGTH = 16;
+
+    public interface Listener {
+        /**
+         * Called for each well formed row. Cells are only valid until this returns.
+         *
+         * @param row reader positioned on the row
+         */
+        void onRow(CsvReader row);
+
+        /**
+         * Called instead of {@link #onRow(CsvReader)} for a row that can't be read.
+         *
+         * @param rowNumber number of the row starting at 1
+         * @param reason    why the row was skipped
+         */
+        void onMalformedRow(long rowNumber, String reason);
+    }
+
+    private final Reader reader;
+    private final char separator;
+    private final int maxRowLength;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int rowStart;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    // start and end of each cell of the current row in the buffer
+    private int[] cellStarts = new int[16];
+    private int[] cellEnds = new int[16];
+    private int cellCount;
+    // start of the cell being read and where its next unescaped char goes
+    private int cellStart;
+    private int write;
+    private long rowNumber;
+
+    /**
+     * @param inputStream stream of UTF-8 CSV to read
+     */
+    public CsvReader(InputStream inputStream) {
+        this(new InputStreamReader(inputStream, StandardCharsets.UTF_8), ',', DEFAULT_MAX_ROW_LENGTH);
+    }
+
+    /**
+     * @param reader reader of CSV to read
+     */
+    public CsvReader(Reader reader) {
+        this(reader, ',', DEFAULT_MAX_ROW_LENGTH);
+    }
+
+    /**
+     * @param reader       reader of CSV to read
+     * @param separator    cell separator e.g. ',' or ';'
+     * @param maxRowLength longest row in chars, longer rows are reported as malformed and skipped
+     */
+    public CsvReader(Reader reader, char separator, int maxRowLength) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader shouldn't be null!");
+        }
+        if (separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("separator can't be a quote or line break!");
+        }
+        this.reader = reader;
+        this.separator = separator;
+        this.maxRowLength = Math.max(BUFFER_SIZE, maxRowLength);
+    }
+
+    /**
+     * Reads every remaining row. Rows where any of dateColumns is missing or not a date are
+     * reported to {@link Listener#onMalformedRow(long, String)} rather than
+     * {@link Listener#onRow(CsvReader)}.
+     *
+     * @param listener    listener to pass rows to
+     * @param dateColumns columns that must hold a date
+     * @throws IOException if the underlying reader fails
+     */
+    public void read(Listener listener, int... dateColumns) throws IOException {
+        String reason;
+        while ((reason = nextRow()) != null) {
+            if (reason.isEmpty()) {
+                for (int column : dateColumns) {
+                    if (column >= cellCount) {
+                        reason = "missing column " + column;
+                        break;
+                    }
+                    if (getDate(column) == INVALID_DATE) {
+                        reason = "invalid date in column " + column;
+                        break;
+                    }
+                }
+            }
+            if (reason.isEmpty()) {
+                listener.onRow(this);
+            } else {
+                listener.onMalformedRow(rowNumber, reason);
+            }
+        }
+    }
+
+    /**
+     * @return number of the current row starting at 1
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return number of cells in the current row
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return true if the cell is missing or empty
+     */
+    public boolean isEmpty(int column) {
+        return column >= cellCount || cellStarts[column] == cellEnds[column];
+    }
+
+    /**
+     * @return read only view of the cell, only valid until the next row is read
+     */
+    public CharSequence getCell(int column) {
+        checkColumn(column);
+        return CharBuffer.wrap(buffer, cellStarts[column], cellEnds[column] - cellStarts[column]).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return copy of the cell as a String
+     */
+    public String getString(int column) {
+        checkColumn(column);
+        return new String(buffer, cellStarts[column], cellEnds[column] - cellStarts[column]);
+    }
+
+    /**
+     * Parses a cell written in the {@link AppstronautUtils#timestampToCsvDate(long)} format the
+     * same way as {@link AppstronautUtils#csvDateToDateObject(String)}.
+     *
+     * @return timestamp of the date, or {@link #INVALID_DATE} if the cell is missing or not a date
+     */
+    public long getDate(int column) {
+        if (column < 0 || column >= cellCount) {
+            return INVALID_DATE;
+        }
+        int start = cellStarts[column];
+        int length = cellEnds[column] - start;
+        if (length == DATE_LENGTH) {
+            long local = parseCanonicalDate(buffer, start);
+            if (local != INVALID_DATE) {
+                return ZoneSnapshot.systemDefault().toUtcMillisLaterOffset(local);
+            }
+        }
+        if (length == 0) {
+            return INVALID_DATE;
+        }
+        // unpadded or rolled over fields, leave those to the lenient formatter
+        try {
+            return DateFormatterCache.parse(new String(buffer, start, length), DateFormatterCache.CSV_DATE_PATTERN, Locale.US);
+        } catch (RuntimeException e) {
+            return INVALID_DATE;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // local millis of exactly "yyyy-MM-dd HH:mm" with in range fields, else INVALID_DATE
+    private static long parseCanonicalDate(char[] chars, int offset) {
+        if (chars[offset + 4] != '-' || chars[offset + 7] != '-' || chars[offset + 10] != ' ' || chars[offset + 13] != ':') {
+            return INVALID_DATE;
+        }
+        int year = digits(chars, offset, 4);
+        int month = digits(chars, offset + 5, 2);
+        int day = digits(chars, offset + 8, 2);
+        int hour = digits(chars, offset + 11, 2);
+        int minute = digits(chars, offset + 14, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > TimeKeys.lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return INVALID_DATE;
+        }
+        return TimeKeys.daysFromCivil(year, month, day) * TimeKeys.DAY_MILLIS
+                + hour * TimeKeys.HOUR_MILLIS + minute * 60000L;
+    }
+
+    // value of count digits, or -1 if any of them isn't a digit
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= cellCount) {
+            throw new IndexOutOfBoundsException("Column: " + column + ", Cells: " + cellCount);
+        }
+    }
+
+    /**
+     * Tokenizes the next row in place. Quoted cells are unescaped by copying their content down
+     * over the quotes, so cells never need their own storage.
+     *
+     * @return null at the end of the input, "" for a row or why the row is malformed
+     */
+    private String nextRow() throws IOException {
+        cellCount = 0;
+        rowStart = position;
+        if (position == limit && !fill()) {
+            return null;
+        }
+        rowNumber++;
+
+        cellStart = position;
+        write = position;
+        boolean quoted = false;
+        while (true) {
+            if (position - rowStart > maxRowLength) {
+                cellCount = 0;
+                skipLine();
+                return "row longer than " + maxRowLength + " chars";
+            }
+            if (position == limit && !fill()) {
+                if (quoted) {
+                    return "unterminated quote";
+                }
+                addCell(cellStart, write);
+                return "";
+            }
+
+            char c = buffer[position++];
+            if (quoted) {
+                if (c != '"') {
+                    buffer[write++] = c;
+                } else if (position == limit && !fill()) {
+                    quoted = false;
+                } else if (buffer[position] == '"') {
+                    buffer[write++] = '"';
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == separator) {
+                addCell(cellStart, write);
+                cellStart = position;
+                write = position;
+            } else if (c == '\n') {
+                addCell(cellStart, write);
+                return "";
+            } else if (c == '\r') {
+                addCell(cellStart, write);
+                if ((position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                }
+                return "";
+            } else if (c == '"' && write == cellStart) {
+                quoted = true;
+            } else {
+                buffer[write++] = c;
+            }
+        }
+    }
+
+    private void addCell(int start, int end) {
+        if (cellCount == cellStarts.length) {
+            cellStarts = Arrays.copyOf(cellStarts, cellCount * 2);
+            cellEnds = Arrays.copyOf(cellEnds, cellCount * 2);
+        }
+        cellStarts[cellCount] = start;
+        cellEnds[cellCount] = end;
+        cellCount++;
+    }
+
+    // drops the rest of an oversized row up to the next line break
+    private void skipLine() throws IOException {
+        while (true) {
+            // nothing before position is kept so fill never grows the buffer
+            rowStart = position;
+            if (position == limit && !fill()) {
+                return;
+            }
+            if (buffer[position++] == '\n') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads more input after the current row. The row is moved to the front of the buffer first
+     * and the buffer only grows when a single row doesn't fit.
+     *
+     * @return false if there is no more input
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (rowStart > 0) {
+            int shift = rowStart;
+            System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+            for (int i = 0; i < cellCount; i++) {
+                cellStarts[i] -= shift;
+                cellEnds[i] -= shift;
+            }
+            cellStart -= shift;
+            write -= shift;
+            position -= shift;
+            limit -= shift;
+            rowStart = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxRowLength + 1));
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
@@ -0,0 +1,207 @@
+package com.appstronautstudios.generalutils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams CSV rows straight to a {@link Writer} or {@link OutputStream} so an export runs in
+ * constant memory however many rows it has:
+ * <pre><code>
+ * try (CsvWriter csv = new CsvWriter(outputStream)) {
+ *     csv.writeRow("date", "name", "value");
+ *     for (Entry entry : entries) {
+ *         csv.writeDate(entry.timestamp).write(entry.name).write(entry.value).endRow();
+ *     }
+ * }
+ * </code></pre>
+ * Text cells are cleaned the same way as {@link AppstronautUtils#sanitizeStringForCSV(String)} but
+ * cleaned in a single pass into a reused buffer rather than through three String.replace passes,
+ * and cells containing the separator or a line break are quoted. Date cells are written in the
+ * {@link AppstronautUtils#timestampToCsvDate(long)} format without creating any objects. Not
+ * thread safe.
+ */
+public final class CsvWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DATE_LENGTH = 16;
+
+    private final Writer writer;
+    private final char separator;
+    // "yyyy-MM-dd HH:mm" with the separators pre-filled
+    private final char[] dateCell = {'0', '0', '0', '0', '-', '0', '0', '-', '0', '0', ' ', '0', '0', ':', '0', '0'};
+    private final char[] numberCell = new char[20];
+    // cleaned text of the current cell, grows to the longest cell written
+    private char[] textCell = new char[64];
+    private boolean rowStarted;
+
+    /**
+     * @param outputStream stream to write UTF-8 CSV to, it is buffered by the writer
+     */
+    public CsvWriter(OutputStream outputStream) {
+        this(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), ',');
+    }
+
+    /**
+     * @param writer writer to write CSV to, it is buffered by the writer
+     */
+    public CsvWriter(Writer writer) {
+        this(writer, ',');
+    }
+
+    /**
+     * @param writer    writer to write CSV to, it is buffered by the writer
+     * @param separator cell separator e.g. ',' or ';'
+     */
+    public CsvWriter(Writer writer, char separator) {
+        if (writer == null) {
+            throw new IllegalArgumentException("writer shouldn't be null!");
+        }
+        if (separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("separator can't be a quote or line break!");
+        }
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+        this.separator = separator;
+    }
+
+    /**
+     * Writes a text cell. Null is written as an empty cell.
+     */
+    public CsvWriter write(CharSequence value) throws IOException {
+        startCell();
+        if (value == null) {
+            return this;
+        }
+
+        // one pass copying the kept chars, the quotes go around them once the cell is known
+        int length = value.length();
+        char[] cell = ensureTextCell(length);
+        int count = 0;
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (CharSanitizer.CSV.isForbidden(c)) {
+                continue;
+            }
+            if (c == separator || c == '\n' || c == '\r') {
+                quote = true;
+            }
+            cell[count++] = c;
+        }
+
+        if (quote) writer.write('"');
+        writer.write(cell, 0, count);
+        if (quote) writer.write('"');
+        return this;
+    }
+
+    /**
+     * Writes a whole number cell.
+     */
+    public CsvWriter write(long value) throws IOException {
+        startCell();
+        if (value == Long.MIN_VALUE) {
+            writer.write(Long.toString(value));
+            return this;
+        }
+        long remaining = Math.abs(value);
+        int pos = numberCell.length;
+        do {
+            numberCell[--pos] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (value < 0) numberCell[--pos] = '-';
+        writer.write(numberCell, pos, numberCell.length - pos);
+        return this;
+    }
+
+    /**
+     * Writes a decimal cell. NaN is written as an empty cell.
+     */
+    public CsvWriter write(double value) throws IOException {
+        startCell();
+        if (!Double.isNaN(value)) {
+            writer.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Writes a date cell in the {@link AppstronautUtils#timestampToCsvDate(long)} format.
+     */
+    public CsvWriter writeDate(long timestamp) throws IOException {
+        startCell();
+        long local = ZoneSnapshot.systemDefault().toLocalMillis(timestamp);
+        long date = TimeKeys.civilFromDays(Math.floorDiv(local, TimeKeys.DAY_MILLIS));
+        long year = date / 10000;
+        if (year < 0 || year > 9999) {
+            // signed or five digit years, leave those to the formatter
+            writer.write(AppstronautUtils.timestampToCsvDate(timestamp));
+            return this;
+        }
+        long minuteOfDay = Math.floorMod(local, TimeKeys.DAY_MILLIS) / 60000;
+        TimeKeys.writeDigits(year, 4, dateCell, 0);
+        TimeKeys.writeDigits(date / 100 % 100, 2, dateCell, 5);
+        TimeKeys.writeDigits(date % 100, 2, dateCell, 8);
+        TimeKeys.writeDigits(minuteOfDay / 60, 2, dateCell, 11);
+        TimeKeys.writeDigits(minuteOfDay % 60, 2, dateCell, 14);
+        writer.write(dateCell, 0, DATE_LENGTH);
+        return this;
+    }
+
+    /**
+     * Writes an empty cell.
+     */
+    public CsvWriter writeEmpty() throws IOException {
+        startCell();
+        return this;
+    }
+
+    /**
+     * Writes text cells followed by the end of the row.
+     */
+    public CsvWriter writeRow(CharSequence... values) throws IOException {
+        for (CharSequence value : values) {
+            write(value);
+        }
+        return endRow();
+    }
+
+    /**
+     * Ends the current row.
+     */
+    public CsvWriter endRow() throws IOException {
+        writer.write('\n');
+        rowStarted = false;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private char[] ensureTextCell(int length) {
+        if (textCell.length < length) {
+            textCell = new char[Math.max(length, textCell.length * 2)];
+        }
+        return textCell;
+    }
+
+    private void startCell() throws IOException {
+        if (rowStarted) {
+            writer.write(separator);
+        }
+        rowStarted = true;
+    }
+}
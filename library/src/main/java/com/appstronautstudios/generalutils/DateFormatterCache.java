@@ -0,0 +1,97 @@
+package com.appstronautstudios.generalutils;
+
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, thread safe formatters for the timestamp to text helpers in {@link AppstronautUtils}.
+ * <p>
+ * {@link DateTimeFormatter} is immutable so one instance per pattern and locale is shared by every
+ * thread instead of building a SimpleDateFormat per call. Formatters are looked up by locale then
+ * pattern so a lookup allocates nothing, and callers alternating locales each keep their own. At
+ * most {@link #MAX_FORMATTERS} are kept, past that the cache starts over. Local time comes from
+ * {@link ZoneSnapshot} so time zone changes follow {@link AppstronautUtils#onTimeZoneChanged()}.
+ */
+final class DateFormatterCache {
+
+    static final String CSV_DATE_PATTERN = "yyyy-MM-dd HH:mm";
+
+    // bounds the cache against callers building patterns on the fly
+    static final int MAX_FORMATTERS = 32;
+
+    private static final ConcurrentHashMap<Locale, ConcurrentHashMap<String, DateTimeFormatter>> sFormatters = new ConcurrentHashMap<>();
+    private static final AtomicInteger sSize = new AtomicInteger();
+
+    private DateFormatterCache() {
+    }
+
+    /**
+     * @param pattern DateTimeFormatter pattern
+     * @param locale  locale to format with
+     * @return shared formatter for the pattern and locale
+     */
+    static DateTimeFormatter get(String pattern, Locale locale) {
+        ConcurrentHashMap<String, DateTimeFormatter> byPattern = sFormatters.get(locale);
+        DateTimeFormatter formatter = byPattern != null ? byPattern.get(pattern) : null;
+        if (formatter == null) {
+            // parses as leniently as SimpleDateFormat, variable width numbers and out of range
+            // fields roll over. Formatting is unaffected.
+            formatter = new DateTimeFormatterBuilder()
+                    .parseCaseInsensitive()
+                    .parseLenient()
+                    .appendPattern(pattern)
+                    .toFormatter(locale)
+                    .withResolverStyle(ResolverStyle.LENIENT);
+            if (sSize.incrementAndGet() > MAX_FORMATTERS) {
+                // rare enough that dropping everything beats tracking use
+                sFormatters.clear();
+                sSize.set(1);
+            }
+            sFormatters.computeIfAbsent(locale, l -> new ConcurrentHashMap<>()).put(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * @param timestamp timestamp to format in local time
+     * @param pattern   DateTimeFormatter pattern
+     * @param locale    locale to format with
+     * @return formatted timestamp
+     */
+    static String format(long timestamp, String pattern, Locale locale) {
+        long local = ZoneSnapshot.systemDefault().toLocalMillis(timestamp);
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000L),
+                (int) Math.floorMod(local, 1000L) * 1000000, ZoneOffset.UTC);
+        return get(pattern, locale).format(dateTime);
+    }
+
+    /**
+     * Parses local date time text. Like SimpleDateFormat any text after the pattern is ignored,
+     * times in a gap are shifted later by the length of the gap and times in an overlap use the
+     * later offset.
+     *
+     * @param text    text to parse
+     * @param pattern DateTimeFormatter pattern with date and time fields
+     * @param locale  locale to parse with
+     * @return timestamp of the parsed local date time
+     * @throws java.time.format.DateTimeParseException if the text doesn't match the pattern
+     */
+    static long parse(String text, String pattern, Locale locale) {
+        DateTimeFormatter formatter = get(pattern, locale);
+        TemporalAccessor parsed = formatter.parse(text, new ParsePosition(0));
+        // an overlap resolves to the later offset like SimpleDateFormat
+        return LocalDateTime.from(parsed)
+                .atZone(ZoneSnapshot.systemDefault().getZone())
+                .withLaterOffsetAtOverlap()
+                .toInstant()
+                .toEpochMilli();
+    }
+}
@@ -0,0 +1,265 @@
+package com.appstronautstudios.generalutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reads files through NIO channels without copying them onto the heap. Small files are read into a
+ * pooled direct buffer, large ones are memory mapped and anything can be streamed in chunks:
+ * <pre><code>
+ * FileBuffers.readChunks(file, new FileBuffers.ChunkListener() {
+ *     public void onChunk(ByteBuffer chunk, long position) throws IOException {
+ *         uploadChannel.write(chunk);
+ *     }
+ * });
+ * </code></pre>
+ * Buffers passed to a {@link ChunkListener} are read only and only valid until it returns.
+ * <p>
+ * Files can also be replaced atomically with {@link #writeAtomic(File, boolean, StreamWriter)}.
+ */
+public final class FileBuffers {
+
+    /**
+     * Size of the pooled direct buffers. Files up to this size are read rather than mapped.
+     */
+    public static final int POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private static final int POOL_CAPACITY = 4;
+    private static final ArrayBlockingQueue<ByteBuffer> sPool = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    public interface ChunkListener {
+        /**
+         * @param chunk    read only bytes of the file from position, only valid until this returns
+         * @param position offset of the chunk in the file
+         */
+        void onChunk(ByteBuffer chunk, long position) throws IOException;
+    }
+
+    public interface StreamWriter {
+        /**
+         * @param out stream to write the new contents to, closed by the caller
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private FileBuffers() {
+    }
+
+    /**
+     * Maps a whole file read only. The mapping stays valid after the file is closed and is
+     * released when the buffer is garbage collected.
+     *
+     * @param file file to map
+     * @return read only buffer over the file
+     * @throws IOException if the file can't be read or is too large for a single buffer
+     */
+    public static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map, use readChunks instead");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Passes the whole file to the listener as one buffer. Files up to {@link #POOLED_BUFFER_SIZE}
+     * are read into a pooled direct buffer, larger ones are mapped.
+     *
+     * @param file     file to read
+     * @param listener listener to pass the contents to
+     * @throws IOException if the file can't be read, is too large for a single buffer or the
+     *                     listener throws
+     */
+    public static void read(File file, ChunkListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > POOLED_BUFFER_SIZE) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is too large to map, use readChunks instead");
+                }
+                listener.onChunk(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), 0);
+                return;
+            }
+
+            ByteBuffer buffer = acquire();
+            try {
+                buffer.limit((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading until the file is in
+                }
+                buffer.flip();
+                listener.onChunk(buffer.asReadOnlyBuffer(), 0);
+            } finally {
+                release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Streams a file of any size to the listener in chunks of {@link #POOLED_BUFFER_SIZE} bytes
+     * through a pooled direct buffer.
+     *
+     * @param file     file to read
+     * @param listener listener to pass each chunk to
+     * @throws IOException if the file can't be read or the listener throws
+     */
+    public static void readChunks(File file, ChunkListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = acquire();
+            try {
+                long position = 0;
+                while (true) {
+                    buffer.clear();
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // fill the chunk unless the file ends first
+                    }
+                    if (buffer.position() == 0) {
+                        return;
+                    }
+                    buffer.flip();
+                    int length = buffer.remaining();
+                    listener.onChunk(buffer.asReadOnlyBuffer(), position);
+                    position += length;
+                }
+            } finally {
+                release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a whole file onto the heap.
+     *
+     * @param file file to read
+     * @return contents of the file
+     * @throws IOException if the file can't be read or is too large for an array
+     */
+    public static byte[] readBytes(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException(file + " is too large for an array, use readChunks instead");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the file is in
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException(file + " was truncated while reading");
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Replaces a file so that it either keeps its old contents or has all of the new ones, even if
+     * the process dies part way through. The contents are written to a temp file in the same
+     * directory through a pooled buffer, then renamed over the file.
+     *
+     * @param file   file to write
+     * @param sync   true to force the contents to the storage device before the rename so they
+     *               also survive power loss, at the cost of waiting for the device
+     * @param writer writes the new contents
+     * @throws IOException if writing fails, the original file is left untouched
+     */
+    public static void writeAtomic(File file, boolean sync, StreamWriter writer) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile("." + file.getName() + ".", ".tmp", directory);
+        boolean written = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                ChannelOutputStream out = new ChannelOutputStream(channel);
+                try {
+                    writer.writeTo(out);
+                    out.flush();
+                } finally {
+                    out.release();
+                }
+                if (sync) {
+                    channel.force(true);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            written = true;
+        } finally {
+            if (!written && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    // writes through a pooled direct buffer so the channel sees few, large writes
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel mChannel;
+        private ByteBuffer mBuffer = acquire();
+
+        ChannelOutputStream(FileChannel channel) {
+            mChannel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!mBuffer.hasRemaining()) {
+                drain();
+            }
+            mBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!mBuffer.hasRemaining()) {
+                    drain();
+                }
+                int count = Math.min(len, mBuffer.remaining());
+                mBuffer.put(b, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        void release() {
+            if (mBuffer != null) {
+                FileBuffers.release(mBuffer);
+                mBuffer = null;
+            }
+        }
+
+        private void drain() throws IOException {
+            mBuffer.flip();
+            while (mBuffer.hasRemaining()) {
+                mChannel.write(mBuffer);
+            }
+            mBuffer.clear();
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = sPool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(POOLED_BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        // a full pool drops the buffer for the garbage collector
+        sPool.offer(buffer);
+    }
+}
@@ -0,0 +1,283 @@
+package com.appstronautstudios.generalutils;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compresses a batch of image files in place on a bounded pool of background threads, e.g. after
+ * a gallery multi-select. Each file goes through {@link ImageCompressor} with the same maximum
+ * width/height and jpeg quality:
+ * <pre><code>
+ * ImageBatchCompressor.Batch batch = new ImageBatchCompressor(720, 70).compress(files, new SuccessFailListener() {
+ *     public void success(Object object) {
+ *         ImageCompressor.Result result = (ImageCompressor.Result) object;
+ *     }
+ *
+ *     public void failure(Object object) {
+ *         File file = (File) object;
+ *     }
+ * });
+ * </code></pre>
+ * The pool is sized to the number of cores and how many output sized bitmaps fit in a quarter of
+ * the free heap. A separate limit caps how many images are decoded at once however many workers
+ * there are. Callbacks are delivered on the main thread.
+ */
+public final class ImageBatchCompressor {
+
+    private static final String TAG = "ImageCompression";
+
+    private final int maxDimension;
+    private final int jpegQuality;
+    private Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    private int maxWorkers;
+    private int maxInFlight;
+    private boolean sync;
+    private boolean keepExifOrientation;
+    private Bitmap.CompressFormat format = Bitmap.CompressFormat.JPEG;
+    private long maxBytes;
+
+    /**
+     * @param maxDimension the maximum width/height dimension to scale down to
+     * @param jpegQuality  the jpeg quality to provide to the bitmap compressor
+     */
+    public ImageBatchCompressor(int maxDimension, int jpegQuality) {
+        if (maxDimension <= 0) {
+            throw new IllegalArgumentException("maxDimension must be positive!");
+        }
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * @see ImageCompressor#setConfig(Bitmap.Config)
+     */
+    public ImageBatchCompressor setConfig(Bitmap.Config config) {
+        this.config = ImageCompressor.checkConfig(config);
+        return this;
+    }
+
+    /**
+     * @see ImageCompressor#setSync(boolean)
+     */
+    public ImageBatchCompressor setSync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * @see ImageCompressor#setKeepExifOrientation(boolean)
+     */
+    public ImageBatchCompressor setKeepExifOrientation(boolean keepExifOrientation) {
+        this.keepExifOrientation = keepExifOrientation;
+        return this;
+    }
+
+    /**
+     * @see ImageCompressor#setFormat(Bitmap.CompressFormat)
+     */
+    public ImageBatchCompressor setFormat(Bitmap.CompressFormat format) {
+        this.format = ImageCompressor.checkFormat(format);
+        return this;
+    }
+
+    /**
+     * @see ImageCompressor#setMaxBytes(long)
+     */
+    public ImageBatchCompressor setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        return this;
+    }
+
+    /**
+     * @param maxWorkers most threads to compress on, 0 (default) to size by cores and memory
+     */
+    public ImageBatchCompressor setMaxWorkers(int maxWorkers) {
+        this.maxWorkers = Math.max(0, maxWorkers);
+        return this;
+    }
+
+    /**
+     * @param maxInFlight most images decoded at once, each holding its output bitmap and a
+     *                    rotated copy at most. 0 (default) for one per worker.
+     */
+    public ImageBatchCompressor setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(0, maxInFlight);
+        return this;
+    }
+
+    /**
+     * @param files    image files to compress in place
+     * @param listener told on the main thread as each file finishes, success with its
+     *                 {@link ImageCompressor.Result} or failure with the {@link File} if it failed
+     *                 or the batch was cancelled first
+     * @return handle to follow or cancel the batch
+     */
+    public Batch compress(List<File> files, SuccessFailListener listener) {
+        return compress(files, listener, null);
+    }
+
+    /**
+     * @param files         image files to compress in place
+     * @param listener      told on the main thread as each file finishes, success with its
+     *                      {@link ImageCompressor.Result} or failure with the {@link File} if it
+     *                      failed or the batch was cancelled first
+     * @param batchListener told on the main thread once every file has finished, success with the
+     *                      {@link Batch} or failure with it if it was cancelled
+     * @return handle to follow or cancel the batch
+     */
+    public Batch compress(List<File> files, SuccessFailListener listener, SuccessFailListener batchListener) {
+        if (files == null) {
+            throw new IllegalArgumentException("files shouldn't be null!");
+        }
+        List<File> pending = new ArrayList<>(files);
+        int workers = Math.max(1, Math.min(pending.size(), maxWorkers > 0 ? maxWorkers : defaultWorkers()));
+        Batch batch = new Batch(pending.size(), maxInFlight > 0 ? maxInFlight : workers, listener, batchListener);
+        if (pending.isEmpty()) {
+            batch.finish();
+            return batch;
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }, "ImageBatchCompressor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        for (File file : pending) {
+            executor.execute(() -> batch.run(file, new ImageCompressor(maxDimension, jpegQuality)
+                    .setConfig(config)
+                    .setSync(sync)
+                    .setKeepExifOrientation(keepExifOrientation)
+                    .setFormat(format)
+                    .setMaxBytes(maxBytes)
+                    .setReuseBitmaps(false)));
+        }
+        // queued files still run, the threads exit once the queue is empty
+        executor.shutdown();
+        return batch;
+    }
+
+    private int defaultWorkers() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int bytesPerPixel = config == Bitmap.Config.RGB_565 ? 2 : 4;
+        // output bitmap plus a rotated copy
+        long perImage = 2L * maxDimension * maxDimension * bytesPerPixel;
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        long byMemory = Math.max(1, free / 4 / perImage);
+        return (int) Math.max(1, Math.min(cores, byMemory));
+    }
+
+    /**
+     * A running batch. Cancelling lets files already being compressed finish and fails the rest.
+     */
+    public static final class Batch {
+        private final int total;
+        private final Semaphore inFlight;
+        private final SuccessFailListener listener;
+        private final SuccessFailListener batchListener;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        Batch(int total, int maxInFlight, SuccessFailListener listener, SuccessFailListener batchListener) {
+            this.total = total;
+            this.inFlight = new Semaphore(maxInFlight);
+            this.listener = listener;
+            this.batchListener = batchListener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return finished.get() == total;
+        }
+
+        public int getTotalCount() {
+            return total;
+        }
+
+        /**
+         * @return number of files finished so far, failed ones included
+         */
+        public int getFinishedCount() {
+            return finished.get();
+        }
+
+        public int getFailedCount() {
+            return failed.get();
+        }
+
+        void run(File file, ImageCompressor compressor) {
+            ImageCompressor.Result result = null;
+            try {
+                if (!cancelled) {
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        if (!cancelled) {
+                            result = compressor.compress(file);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            } catch (Throwable e) {
+                // e.g. OutOfMemoryError on a huge image, fail the file rather than the batch
+                Log.e(TAG, "Error compressing " + file, e);
+                result = null;
+            } finally {
+                if (result == null) {
+                    failed.incrementAndGet();
+                }
+                final ImageCompressor.Result fileResult = result;
+                handler.post(() -> {
+                    if (listener != null) {
+                        if (fileResult != null) {
+                            listener.success(fileResult);
+                        } else {
+                            listener.failure(file);
+                        }
+                    }
+                });
+                if (finished.incrementAndGet() == total) {
+                    finish();
+                }
+            }
+        }
+
+        void finish() {
+            handler.post(() -> {
+                if (batchListener != null) {
+                    if (cancelled) {
+                        batchListener.failure(this);
+                    } else {
+                        batchListener.success(this);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,744 @@
+package com.appstronautstudios.generalutils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Scales image files down to a maximum width/height and re-encodes them in place, as jpeg unless
+ * {@link #setFormat(Bitmap.CompressFormat)} says otherwise, see
+ * {@link AppstronautUtils#compressImageFile(File, int, int)}. With {@link #setMaxBytes(long)} the
+ * quality is lowered as little as needed for the file to fit a size limit.
+ * <p>
+ * The full resolution image is never decoded. A power of two inSampleSize does the coarse
+ * reduction inside the decoder and a density scale applied during the same decode lands on the
+ * exact output size, so the only bitmap allocated is the output sized one. Images whose EXIF
+ * orientation needs turning are drawn upright into that one bitmap band by band. Keeping one
+ * compressor for a batch of files lets each decode reuse the previous bitmap through inBitmap:
+ * <pre><code>
+ * ImageCompressor compressor = new ImageCompressor(1080, 80).setConfig(Bitmap.Config.RGB_565);
+ * for (File file : files) {
+ *     ImageCompressor.Result result = compressor.compress(file);
+ * }
+ * compressor.release();
+ * </code></pre>
+ * Not thread safe, use one compressor per thread.
+ */
+public final class ImageCompressor {
+
+    private static final String TAG = "ImageCompression";
+    // rows of the sampled image decoded at a time when turning it upright
+    private static final int BAND_ROWS = 256;
+    private static final int BAND_OVERLAP = 2;
+
+    /**
+     * Lowest quality tried when fitting a file into {@link #setMaxBytes(long)}.
+     */
+    public static final int MIN_QUALITY = 10;
+
+    private static final String WEBP_LOSSY = "WEBP_LOSSY";
+    private static final String WEBP_LOSSLESS = "WEBP_LOSSLESS";
+
+    // encode buffers kept for the next size targeted compress
+    private static final int STREAM_POOL_CAPACITY = 4;
+    private static final int MAX_POOLED_STREAM_BYTES = 4 * 1024 * 1024;
+    private static final ArrayBlockingQueue<PooledStream> sStreamPool = new ArrayBlockingQueue<>(STREAM_POOL_CAPACITY);
+
+    private final int maxDimension;
+    private final int jpegQuality;
+    private Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    private boolean reuseBitmaps = true;
+    private boolean sync;
+    private boolean keepExifOrientation;
+    private Bitmap.CompressFormat format = Bitmap.CompressFormat.JPEG;
+    private long maxBytes;
+    // most bitmap memory held during the current compress
+    private long peakBytes;
+    // last decoded bitmap, handed back to the decoder as inBitmap
+    private Bitmap reusable;
+
+    /**
+     * @param maxDimension the maximum width/height dimension to scale down to
+     * @param jpegQuality  the jpeg quality to provide to the bitmap compressor
+     */
+    public ImageCompressor(int maxDimension, int jpegQuality) {
+        if (maxDimension <= 0) {
+            throw new IllegalArgumentException("maxDimension must be positive!");
+        }
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * @param config ARGB_8888 (default), RGB_565 to halve memory for images without alpha or
+     *               HARDWARE to keep pixels out of the java heap. HARDWARE bitmaps can't be
+     *               reused so images that need rotating are decoded as ARGB_8888.
+     */
+    public ImageCompressor setConfig(Bitmap.Config config) {
+        this.config = checkConfig(config);
+        return this;
+    }
+
+    static Bitmap.Config checkConfig(Bitmap.Config config) {
+        if (config != Bitmap.Config.ARGB_8888 && config != Bitmap.Config.RGB_565 && config != Bitmap.Config.HARDWARE) {
+            throw new IllegalArgumentException("config must be ARGB_8888, RGB_565 or HARDWARE!");
+        }
+        return config;
+    }
+
+    /**
+     * @param reuseBitmaps true (default) to keep the last decoded bitmap and decode the next
+     *                     image into it. Call {@link #release()} once done.
+     */
+    public ImageCompressor setReuseBitmaps(boolean reuseBitmaps) {
+        this.reuseBitmaps = reuseBitmaps;
+        if (!reuseBitmaps) {
+            release();
+        }
+        return this;
+    }
+
+    /**
+     * @param sync true to force each compressed file to the storage device before it replaces the
+     *             original so it also survives power loss. Off by default, files are always
+     *             replaced atomically.
+     */
+    public ImageCompressor setSync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * @param keepExifOrientation true to keep the pixels as stored and write the EXIF orientation
+     *                            tag into the compressed file instead of rotating them, which
+     *                            viewers that read EXIF display the same. Jpegs that don't need
+     *                            scaling are then left untouched, metadata included. Off by
+     *                            default, the pixels are turned upright for consumers that ignore
+     *                            EXIF.
+     */
+    public ImageCompressor setKeepExifOrientation(boolean keepExifOrientation) {
+        this.keepExifOrientation = keepExifOrientation;
+        return this;
+    }
+
+    /**
+     * @param format JPEG (default), PNG, or from API 30 WEBP_LOSSY or WEBP_LOSSLESS. The file
+     *               name is left as it is.
+     */
+    public ImageCompressor setFormat(Bitmap.CompressFormat format) {
+        this.format = checkFormat(format);
+        return this;
+    }
+
+    static Bitmap.CompressFormat checkFormat(Bitmap.CompressFormat format) {
+        if (format != Bitmap.CompressFormat.JPEG && format != Bitmap.CompressFormat.PNG
+                && !isNamed(format, WEBP_LOSSY) && !isNamed(format, WEBP_LOSSLESS)) {
+            throw new IllegalArgumentException("format must be JPEG, PNG, WEBP_LOSSY or WEBP_LOSSLESS!");
+        }
+        return format;
+    }
+
+    /**
+     * @param maxBytes size the compressed file should fit in, 0 (default) for no limit. Lossy
+     *                 formats are encoded at the highest quality up to the jpeg quality that fits,
+     *                 found by binary search down to a quality of {@value #MIN_QUALITY}. Lossless
+     *                 formats are encoded once. The result is kept even if it doesn't fit.
+     */
+    public ImageCompressor setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        return this;
+    }
+
+    /**
+     * Recycles the bitmap kept for reuse.
+     */
+    public void release() {
+        if (reusable != null && !reusable.isRecycled()) {
+            reusable.recycle();
+        }
+        reusable = null;
+    }
+
+    /**
+     * Compresses an image file scaled down to the maximum width/height and jpeg quality. Saves in
+     * place. Images that don't need scaling are still re-encoded at full quality so EXIF rotation
+     * is applied and metadata is stripped. Re-encoded files carry no EXIF apart from a kept
+     * orientation tag.
+     * <p>
+     * With {@link #setKeepExifOrientation(boolean)} set, jpegs that don't need scaling and fit
+     * {@link #setMaxBytes(long)} are left untouched when writing jpeg. They keep all of their
+     * EXIF metadata, including GPS location.
+     *
+     * @param imageFile the image file to compress
+     * @return what was done, or null if the file couldn't be compressed
+     */
+    public Result compress(File imageFile) {
+        if (imageFile == null || !imageFile.exists()) {
+            Log.e(TAG, "File does not exist.");
+            return null;
+        }
+
+        String path = imageFile.getAbsolutePath();
+        Bitmap bitmap = null;
+        Bitmap rotatedBitmap = null;
+
+        try {
+            // Get original dimensions without loading full image
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, options);
+            int originalWidth = options.outWidth;
+            int originalHeight = options.outHeight;
+            if (originalWidth <= 0 || originalHeight <= 0) {
+                Log.e(TAG, "Not a decodable image: " + path);
+                return null;
+            }
+
+            // Read EXIF orientation first so the decode config can account for it
+            ExifInterface exif = new ExifInterface(path);
+            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+
+            // Largest power of two that keeps the decoded image at least maxDimension
+            int largestDimension = Math.max(originalWidth, originalHeight);
+            boolean scaled = largestDimension > maxDimension;
+            int sampleSize = 1;
+            while (largestDimension / (sampleSize * 2) >= maxDimension) {
+                sampleSize *= 2;
+            }
+
+            // The decoder rounds sampled dimensions its own way, ask it rather than guess
+            options.inSampleSize = sampleSize;
+            if (sampleSize > 1) {
+                BitmapFactory.decodeFile(path, options);
+            }
+            int sampledLargest = Math.max(options.outWidth, options.outHeight);
+
+            options.inJustDecodeBounds = false;
+            if (scaled && sampledLargest > maxDimension) {
+                // exact final scale applied by the decoder on the sampled pixels
+                options.inScaled = true;
+                options.inDensity = sampledLargest;
+                options.inTargetDensity = maxDimension;
+            } else {
+                options.inScaled = false;
+            }
+
+            boolean upright = orientation == ExifInterface.ORIENTATION_NORMAL || orientation == ExifInterface.ORIENTATION_UNDEFINED;
+            // only jpeg output can carry the orientation tag, anything else is turned upright
+            boolean tagOrientation = !upright && keepExifOrientation && format == Bitmap.CompressFormat.JPEG;
+            if (keepExifOrientation && !scaled && format == Bitmap.CompressFormat.JPEG
+                    && "image/jpeg".equals(options.outMimeType) && (maxBytes <= 0 || imageFile.length() <= maxBytes)) {
+                // already small enough and the tag still describes the pixels, nothing to rewrite
+                Result result = new Result(imageFile, originalWidth, originalHeight, 1, originalWidth,
+                        originalHeight, null, false, 0, imageFile.length(), null, -1, 0, 0);
+                Log.d(TAG, "Already compressed: " + path + " " + result);
+                return result;
+            }
+            boolean transform = !upright && !tagOrientation;
+
+            Bitmap.Config decodeConfig = config;
+            if (decodeConfig == Bitmap.Config.HARDWARE && transform) {
+                decodeConfig = Bitmap.Config.ARGB_8888;
+            }
+            options.inPreferredConfig = decodeConfig;
+            Bitmap previous = reusable;
+            peakBytes = 0;
+
+            boolean drawnUpright = false;
+            if (transform) {
+                float scale = options.inScaled ? (float) maxDimension / sampledLargest : 1f;
+                bitmap = decodeUpright(path, sampleSize, options.outWidth, options.outHeight, scale, orientation, decodeConfig);
+                drawnUpright = bitmap != null;
+            }
+            if (bitmap == null) {
+                if (reuseBitmaps && decodeConfig != Bitmap.Config.HARDWARE) {
+                    options.inMutable = true;
+                    if (reusable != null && !reusable.isRecycled() && reusable.getConfig() == decodeConfig) {
+                        options.inBitmap = reusable;
+                    }
+                }
+                bitmap = BitmapFactory.decodeFile(path, options);
+                if (bitmap == null && options.inBitmap != null) {
+                    // decodeFile swallows the failure when the kept bitmap can't hold this image,
+                    // decode into a new one instead
+                    options.inBitmap = null;
+                    bitmap = BitmapFactory.decodeFile(path, options);
+                }
+            }
+            boolean reused = bitmap != null && bitmap == previous;
+            if (reusable != null && bitmap != reusable) {
+                // the kept bitmap was still alive during the decode
+                peakBytes += reusable.getAllocationByteCount();
+                release();
+            }
+            if (bitmap == null) {
+                Log.e(TAG, "Failed to decode image: " + path);
+                return null;
+            }
+            peakBytes += bitmap.getAllocationByteCount();
+
+            // Formats the region decoder can't read are still rotated with a second bitmap
+            if (transform && !drawnUpright) {
+                Matrix matrix = AppstronautUtils.getOrientationMatrix(orientation);
+                rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+                peakBytes += rotatedBitmap.getAllocationByteCount();
+            } else {
+                rotatedBitmap = bitmap;
+            }
+
+            // no downsampling performed so assume no compression. We still want to be able to run
+            // this to make sure EXIF rotation is applied to the image to preserve it for future
+            // uploads/zips etc. Lossless
+            int quality = scaled ? jpegQuality : 100;
+            Bitmap output = rotatedBitmap;
+            int outputOrientation = tagOrientation ? orientation : ExifInterface.ORIENTATION_UNDEFINED;
+            long encodeStart = System.nanoTime();
+            Encoding encoding = null;
+            try {
+                if (maxBytes > 0 && !isLossless(format)) {
+                    long budget = maxBytes - (tagOrientation ? OrientationTagOutputStream.SEGMENT_LENGTH : 0);
+                    encoding = encodeWithin(output, Math.min(quality, jpegQuality), budget, path);
+                    quality = encoding.quality;
+                }
+
+                // Replace the same file, a failed encode leaves the original photo untouched
+                final Encoding encoded = encoding;
+                final int finalQuality = quality;
+                FileBuffers.writeAtomic(imageFile, sync, out -> {
+                    OutputStream target = outputOrientation != ExifInterface.ORIENTATION_UNDEFINED
+                            ? new OrientationTagOutputStream(out, outputOrientation) : out;
+                    if (encoded != null) {
+                        encoded.bytes.writeTo(target);
+                    } else {
+                        encode(output, finalQuality, target, path);
+                    }
+                    target.flush();
+                });
+            } finally {
+                if (encoding != null) {
+                    releaseStream(encoding.bytes);
+                }
+            }
+            long encodeMillis = (System.nanoTime() - encodeStart) / 1000000;
+
+            Result result = new Result(imageFile, originalWidth, originalHeight, sampleSize, rotatedBitmap.getWidth(),
+                    rotatedBitmap.getHeight(), decodeConfig, reused, peakBytes, imageFile.length(), format,
+                    isLossless(format) ? -1 : quality, encoding != null ? encoding.attempts : 1, encodeMillis);
+            if (maxBytes > 0 && result.getFileBytes() > maxBytes) {
+                Log.w(TAG, "Couldn't fit " + path + " in " + maxBytes + " bytes");
+            }
+            Log.d(TAG, "Compressed and saved: " + path + " " + result);
+            return result;
+        } catch (IOException e) {
+            Log.e(TAG, "Error compressing image", e);
+            return null;
+        } finally {
+            if (rotatedBitmap != null && rotatedBitmap != bitmap && !rotatedBitmap.isRecycled())
+                rotatedBitmap.recycle();
+            if (bitmap != null && !bitmap.isRecycled()) {
+                if (reuseBitmaps && bitmap.isMutable() && bitmap.getConfig() != Bitmap.Config.HARDWARE) {
+                    reusable = bitmap;
+                } else {
+                    bitmap.recycle();
+                }
+            }
+        }
+    }
+
+    // an encoded image held in memory while searching for the quality that fits
+    private static class Encoding {
+        PooledStream bytes;
+        int quality;
+        int attempts;
+    }
+
+    /**
+     * Binary search for the highest quality up to maxQuality whose encoding fits in budget. Only
+     * the best fitting encoding and the current attempt are held at once.
+     *
+     * @return the best fitting encoding, or the lowest quality one if none fit
+     */
+    private Encoding encodeWithin(Bitmap bitmap, int maxQuality, long budget, String path) throws IOException {
+        Encoding best = new Encoding();
+        best.bytes = acquireStream();
+        best.quality = maxQuality;
+        best.attempts = 1;
+        encode(bitmap, maxQuality, best.bytes, path);
+        if (best.bytes.size() <= budget || maxQuality <= MIN_QUALITY) {
+            return best;
+        }
+
+        PooledStream attempt = acquireStream();
+        boolean fits = false;
+        int low = MIN_QUALITY;
+        int high = maxQuality - 1;
+        try {
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                attempt.reset();
+                encode(bitmap, mid, attempt, path);
+                best.attempts++;
+                if (attempt.size() <= budget) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+                // keep the fitting attempt with the highest quality, or the smallest if none fit yet
+                if (attempt.size() <= budget ? (!fits || mid > best.quality) : (!fits && attempt.size() < best.bytes.size())) {
+                    fits |= attempt.size() <= budget;
+                    PooledStream swap = best.bytes;
+                    best.bytes = attempt;
+                    best.quality = mid;
+                    attempt = swap;
+                }
+            }
+        } finally {
+            releaseStream(attempt);
+        }
+        return best;
+    }
+
+    private void encode(Bitmap bitmap, int quality, OutputStream out, String path) throws IOException {
+        // quality is compression effort for lossless webp, spend the most on it
+        int platformQuality = isNamed(format, WEBP_LOSSLESS) ? 100 : quality;
+        if (!bitmap.compress(format, platformQuality, out)) {
+            throw new IOException("Failed to encode " + path);
+        }
+    }
+
+    private static boolean isLossless(Bitmap.CompressFormat format) {
+        return format == Bitmap.CompressFormat.PNG || isNamed(format, WEBP_LOSSLESS);
+    }
+
+    // the webp constants are API 30, comparing names never loads them on older devices
+    private static boolean isNamed(Bitmap.CompressFormat format, String name) {
+        return format != null && format.name().equals(name);
+    }
+
+    private static PooledStream acquireStream() {
+        PooledStream stream = sStreamPool.poll();
+        if (stream == null) {
+            stream = new PooledStream();
+        }
+        stream.reset();
+        return stream;
+    }
+
+    private static void releaseStream(PooledStream stream) {
+        // don't keep buffers that grew large alive between batches
+        if (stream.capacity() <= MAX_POOLED_STREAM_BYTES) {
+            stream.reset();
+            sStreamPool.offer(stream);
+        }
+    }
+
+    private static class PooledStream extends ByteArrayOutputStream {
+        PooledStream() {
+            super(64 * 1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    /**
+     * Decodes the image in horizontal bands with a region decoder and draws each one through a
+     * single scale, flip and rotate matrix into an output bitmap that is already upright. Only
+     * the output and one band are ever allocated, rather than a scaled bitmap plus a rotated copy.
+     *
+     * @return the upright bitmap, or null if the format has no region decoder
+     */
+    private Bitmap decodeUpright(String path, int sampleSize, int sampledWidth, int sampledHeight, float scale,
+                                 int orientation, Bitmap.Config decodeConfig) throws IOException {
+        BitmapRegionDecoder decoder;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(path, false);
+        } catch (IOException e) {
+            return null;
+        }
+        if (decoder == null) {
+            return null;
+        }
+
+        Bitmap output = null;
+        Bitmap band = null;
+        try {
+            Matrix matrix = AppstronautUtils.getOrientationMatrix(orientation);
+            matrix.preScale(scale, scale);
+            RectF bounds = new RectF(0, 0, sampledWidth, sampledHeight);
+            matrix.mapRect(bounds);
+            matrix.postTranslate(-bounds.left, -bounds.top);
+            output = obtainOutput(Math.round(bounds.width()), Math.round(bounds.height()), decodeConfig);
+
+            Canvas canvas = new Canvas(output);
+            canvas.concat(matrix);
+            Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            BitmapFactory.Options bandOptions = new BitmapFactory.Options();
+            bandOptions.inSampleSize = sampleSize;
+            bandOptions.inPreferredConfig = decodeConfig;
+            bandOptions.inMutable = true;
+            Rect region = new Rect();
+            int width = decoder.getWidth();
+            int height = decoder.getHeight();
+            long bandBytes = 0;
+            for (int top = 0; top < sampledHeight; top += BAND_ROWS) {
+                int bottom = Math.min(sampledHeight, top + BAND_ROWS);
+                // overlap neighbouring bands so filtering doesn't leave seams at the edges
+                int decodeTop = Math.max(0, top - BAND_OVERLAP);
+                int decodeBottom = Math.min(sampledHeight, bottom + BAND_OVERLAP);
+                region.set(0, decodeTop * sampleSize, width, Math.min(height, decodeBottom * sampleSize));
+
+                bandOptions.inBitmap = band;
+                Bitmap decoded;
+                try {
+                    decoded = decoder.decodeRegion(region, bandOptions);
+                } catch (IllegalArgumentException e) {
+                    // inBitmap rejected up front
+                    decoded = null;
+                }
+                if (decoded == null && bandOptions.inBitmap != null) {
+                    // the band bitmap couldn't be reused, decode into a new one
+                    bandOptions.inBitmap = null;
+                    decoded = decoder.decodeRegion(region, bandOptions);
+                }
+                if (decoded == null) {
+                    throw new IOException("Failed to decode region " + region + " of " + path);
+                }
+                if (band != null && decoded != band) {
+                    band.recycle();
+                }
+                band = decoded;
+                bandBytes = Math.max(bandBytes, band.getAllocationByteCount());
+
+                canvas.save();
+                canvas.clipRect(0, top, sampledWidth, bottom);
+                canvas.drawBitmap(band, 0, decodeTop, paint);
+                canvas.restore();
+            }
+            peakBytes += bandBytes;
+            Bitmap upright = output;
+            output = null;
+            return upright;
+        } finally {
+            if (band != null) band.recycle();
+            if (output != null && output != reusable) output.recycle();
+            decoder.recycle();
+        }
+    }
+
+    // output sized bitmap, reconfigured from the kept bitmap when it is big enough
+    private Bitmap obtainOutput(int width, int height, Bitmap.Config decodeConfig) {
+        int bytesPerPixel = decodeConfig == Bitmap.Config.RGB_565 ? 2 : 4;
+        if (reuseBitmaps && reusable != null && !reusable.isRecycled() && reusable.isMutable()
+                && reusable.getAllocationByteCount() >= (long) width * height * bytesPerPixel) {
+            reusable.reconfigure(width, height, decodeConfig);
+            reusable.eraseColor(Color.TRANSPARENT);
+            return reusable;
+        }
+        release();
+        return Bitmap.createBitmap(width, height, decodeConfig);
+    }
+
+    /**
+     * Inserts an EXIF segment holding only the orientation tag straight after the jpeg start of
+     * image marker, so the tag survives re-encoding without a second pass over the file.
+     */
+    private static class OrientationTagOutputStream extends FilterOutputStream {
+        static final int SEGMENT_LENGTH = 36;
+
+        private final int mOrientation;
+        private int mWritten;
+
+        OrientationTagOutputStream(OutputStream out, int orientation) {
+            super(out);
+            mOrientation = orientation;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (++mWritten == 2) {
+                writeExifSegment();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (mWritten >= 2) {
+                out.write(b, off, len);
+                mWritten += len;
+                return;
+            }
+            int head = Math.min(len, 2 - mWritten);
+            for (int i = 0; i < head; i++) {
+                write(b[off + i]);
+            }
+            if (len > head) {
+                out.write(b, off + head, len - head);
+                mWritten += len - head;
+            }
+        }
+
+        private void writeExifSegment() throws IOException {
+            out.write(new byte[]{
+                    (byte) 0xFF, (byte) 0xE1, 0x00, 0x22,                    // APP1, length 34
+                    'E', 'x', 'i', 'f', 0x00, 0x00,                           // exif header
+                    'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,             // big endian tiff, ifd at 8
+                    0x00, 0x01,                                               // one entry
+                    0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01,           // orientation, short, count 1
+                    0x00, (byte) mOrientation, 0x00, 0x00,                    // value
+                    0x00, 0x00, 0x00, 0x00                                    // no next ifd
+            });
+        }
+    }
+
+    /**
+     * Outcome of {@link #compress(File)}.
+     */
+    public static final class Result {
+        private final File file;
+        private final int originalWidth;
+        private final int originalHeight;
+        private final int sampleSize;
+        private final int width;
+        private final int height;
+        private final Bitmap.Config config;
+        private final boolean reusedBitmap;
+        private final long peakBitmapBytes;
+        private final long fileBytes;
+        private final Bitmap.CompressFormat format;
+        private final int quality;
+        private final int encodeAttempts;
+        private final long encodeMillis;
+
+        Result(File file, int originalWidth, int originalHeight, int sampleSize, int width, int height,
+               Bitmap.Config config, boolean reusedBitmap, long peakBitmapBytes, long fileBytes,
+               Bitmap.CompressFormat format, int quality, int encodeAttempts, long encodeMillis) {
+            this.file = file;
+            this.originalWidth = originalWidth;
+            this.originalHeight = originalHeight;
+            this.sampleSize = sampleSize;
+            this.width = width;
+            this.height = height;
+            this.config = config;
+            this.reusedBitmap = reusedBitmap;
+            this.peakBitmapBytes = peakBitmapBytes;
+            this.fileBytes = fileBytes;
+            this.format = format;
+            this.quality = quality;
+            this.encodeAttempts = encodeAttempts;
+            this.encodeMillis = encodeMillis;
+        }
+
+        /**
+         * @return the compressed file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        public int getOriginalWidth() {
+            return originalWidth;
+        }
+
+        public int getOriginalHeight() {
+            return originalHeight;
+        }
+
+        /**
+         * @return power of two the decoder subsampled by
+         */
+        public int getSampleSize() {
+            return sampleSize;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return config the image was decoded with, or null if the file was left untouched
+         */
+        public Bitmap.Config getConfig() {
+            return config;
+        }
+
+        /**
+         * @return true if the image was decoded into the previous bitmap
+         */
+        public boolean isReusedBitmap() {
+            return reusedBitmap;
+        }
+
+        /**
+         * @return most bitmap memory held at once, compare with width * height * bytes per pixel
+         */
+        public long getPeakBitmapBytes() {
+            return peakBitmapBytes;
+        }
+
+        /**
+         * @return size of the written file
+         */
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        /**
+         * @return format the file was written in, or null if it was left untouched
+         */
+        public Bitmap.CompressFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * @return quality the file was encoded at, or -1 if lossless or left untouched
+         */
+        public int getQuality() {
+            return quality;
+        }
+
+        /**
+         * @return number of encodes done, more than one when searching for a quality that fits
+         */
+        public int getEncodeAttempts() {
+            return encodeAttempts;
+        }
+
+        /**
+         * @return time spent encoding and writing the file
+         */
+        public long getEncodeMillis() {
+            return encodeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return originalWidth + "x" + originalHeight + " -> " + width + "x" + height
+                    + " (sample " + sampleSize + ", " + config + (reusedBitmap ? ", reused" : "")
+                    + ", peak " + peakBitmapBytes + " bytes, " + format + " quality " + quality
+                    + " in " + encodeAttempts + " attempts, " + encodeMillis + " ms, file " + fileBytes + " bytes)";
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.appstronautstudios.generalutils;
+
+/**
+ * Random-access view of the buckets generated by
+ * {@link AppstronautUtils#setupNewXValsMillis(long, long, Timescale)} for a start, end and
+ * {@link Timescale}. Buckets are computed on demand so a chart only pays for the viewport it
+ * renders instead of every bucket in the range.
+ * <p>
+ * {@link #get(int)} and {@link #indexOf(long)} are O(log n) in the number of zone transitions,
+ * create no objects and {@link #size()} is computed once. Note this uses the local time zone at
+ * construction time for calculations NOT UTC.
+ */
+public final class TimeAxis {
+
+    private final Timescale scale;
+    private final ZoneSnapshot zone;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final long finish;
+    private final long firstEpochDay;
+    private final long firstMonth;
+    private final int firstDayOfMonth;
+    private final long firstBucket;
+    private final int size;
+
+    /**
+     * @param startTimestamp timestamp of where to start
+     * @param endTimestamp   timestamp of where to end
+     * @param timeScale      timescale to iterate with
+     */
+    public TimeAxis(long startTimestamp, long endTimestamp, Timescale timeScale) {
+        this.scale = (timeScale != null) ? timeScale : Timescale.DAY;
+        this.zone = ZoneSnapshot.systemDefault();
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.finish = AppstronautUtils.endOfDateTimestamp(endTimestamp);
+
+        long localStart = zone.toLocalMillis(startTimestamp);
+        this.firstEpochDay = Math.floorDiv(localStart, TimeKeys.DAY_MILLIS);
+        long firstDate = TimeKeys.civilFromDays(firstEpochDay);
+        this.firstMonth = monthIndex(firstDate);
+        this.firstDayOfMonth = (int) (firstDate % 100);
+        if (scale == Timescale.HOUR) {
+            this.firstBucket = zone.toUtcMillis(localStart - Math.floorMod(localStart, TimeKeys.HOUR_MILLIS));
+        } else {
+            this.firstBucket = zone.startOfDayMillis(firstEpochDay);
+        }
+        this.size = AppstronautUtils.countNewXVals(startTimestamp, endTimestamp, scale);
+    }
+
+    public Timescale getTimescale() {
+        return scale;
+    }
+
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public long getEndTimestamp() {
+        return endTimestamp;
+    }
+
+    /**
+     * @return number of buckets on this axis
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index bucket index
+     * @return start timestamp of the bucket at index
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return bucketStart(index);
+    }
+
+    /**
+     * Finds the bucket a timestamp falls in. The last bucket runs until the end of the
+     * endTimestamp day.
+     *
+     * @param timestamp timestamp to look up
+     * @return index of the bucket containing timestamp, or -1 if it is outside this axis
+     */
+    public int indexOf(long timestamp) {
+        if (size == 0 || timestamp < firstBucket || timestamp > finish) {
+            return -1;
+        }
+
+        long index;
+        if (scale == Timescale.HOUR) {
+            index = (timestamp - firstBucket) / TimeKeys.HOUR_MILLIS;
+        } else {
+            long epochDay = Math.floorDiv(zone.toLocalMillis(timestamp), TimeKeys.DAY_MILLIS);
+            switch (scale) {
+                case WEEK:
+                    index = (epochDay - firstEpochDay) / 7;
+                    break;
+                case MONTH:
+                    index = monthIndex(TimeKeys.civilFromDays(epochDay)) - firstMonth;
+                    break;
+                case DAY:
+                default:
+                    index = epochDay - firstEpochDay;
+                    break;
+            }
+        }
+
+        // the estimate can overshoot by one where the bucket start is not the first of its unit
+        if (index >= size) index = size - 1;
+        if (index > 0 && timestamp < bucketStart((int) index)) index--;
+        return (int) index;
+    }
+
+    /**
+     * Writes consecutive bucket start timestamps into the buffer, e.g. for the visible viewport.
+     *
+     * @param fromIndex index of the first bucket to write
+     * @param buffer    buffer to write the bucket start timestamps into
+     * @return number of bucket start timestamps written to the buffer
+     */
+    public int fill(int fromIndex, long[] buffer) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("Index: " + fromIndex + ", Size: " + size);
+        }
+        int count = Math.max(0, Math.min(buffer.length, size - fromIndex));
+        for (int i = 0; i < count; i++) {
+            buffer[i] = bucketStart(fromIndex + i);
+        }
+        return count;
+    }
+
+    private long bucketStart(int index) {
+        switch (scale) {
+            case HOUR:
+                return firstBucket + index * TimeKeys.HOUR_MILLIS;
+            case WEEK:
+                return zone.startOfDayMillis(firstEpochDay + index * 7L);
+            case MONTH:
+                return zone.startOfDayMillis(monthBucketEpochDay(index));
+            case DAY:
+            default:
+                return zone.startOfDayMillis(firstEpochDay + index);
+        }
+    }
+
+    // months since year 0 of a yyyyMMdd packed date
+    private static long monthIndex(long date) {
+        return date / 10000 * 12 + (date / 100 % 100 - 1);
+    }
+
+    /**
+     * Month buckets are stepped one month at a time so a start on e.g. the 31st sticks to the
+     * shortest month it has passed through. Two Februaries always include a 28 day one, so only
+     * the first 24 months need checking.
+     */
+    private long monthBucketEpochDay(int index) {
+        int day = firstDayOfMonth;
+        for (int i = 1; i <= Math.min(index, 24) && day > 28; i++) {
+            long month = firstMonth + i;
+            day = Math.min(day, TimeKeys.lengthOfMonth(month / 12, (int) (month % 12) + 1));
+        }
+        long month = firstMonth + index;
+        return TimeKeys.daysFromCivil(month / 12, (int) (month % 12) + 1, day);
+    }
+}
@@ -0,0 +1,254 @@
+package com.appstronautstudios.generalutils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Per bucket count/sum/min/max/mean of a time series, aligned to a {@link TimeAxis} so index i
+ * of every array lines up with {@link TimeAxis#get(int)}.
+ * <p>
+ * Replaces grouping rows by {@link AppstronautUtils#timestampToKeyString(long, Timescale)} into a
+ * map and aligning the result with the X values afterwards:
+ * <pre><code>
+ * TimeBuckets buckets = TimeBuckets.aggregate(timestamps, values, start, end, Timescale.DAY);
+ * double[] means = buckets.getMeans();
+ * </code></pre>
+ * Aggregation is a single pass over primitive arrays with no boxing and no string keys. Empty
+ * buckets have a count and sum of 0 and a min, max and mean of {@link Double#NaN}. Rows with a
+ * NaN value are skipped like rows outside the axis. When only counting rows every mean is NaN.
+ * <p>
+ * Multi-million row series can be split across cores with
+ * {@link #aggregateParallel(long[], double[], TimeAxis)}.
+ */
+public final class TimeBuckets {
+
+    /**
+     * Default number of rows below which {@link #aggregateParallel(long[], double[], TimeAxis)}
+     * stays on the calling thread.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100000;
+
+    private final TimeAxis axis;
+    private final int[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+    private int skipped;
+    private boolean hasValues;
+
+    TimeBuckets(TimeAxis axis) {
+        this.axis = axis;
+        int size = axis.size();
+        this.counts = new int[size];
+        this.sums = new double[size];
+        this.mins = new double[size];
+        this.maxs = new double[size];
+        Arrays.fill(mins, Double.NaN);
+        Arrays.fill(maxs, Double.NaN);
+    }
+
+    /**
+     * Buckets a time series on a new {@link TimeAxis} from startTimestamp to endTimestamp.
+     *
+     * @param timestamps     timestamp of each row
+     * @param values         value of each row, or null to only count rows
+     * @param startTimestamp timestamp of where to start
+     * @param endTimestamp   timestamp of where to end
+     * @param timescale      timescale to bucket by
+     * @return the aggregated buckets
+     * @see #aggregate(long[], double[], TimeAxis)
+     */
+    public static TimeBuckets aggregate(long[] timestamps, double[] values, long startTimestamp, long endTimestamp, Timescale timescale) {
+        return aggregate(timestamps, values, new TimeAxis(startTimestamp, endTimestamp, timescale));
+    }
+
+    /**
+     * Buckets a time series on the provided axis. Rows outside the axis or with a NaN value are
+     * skipped and counted by {@link #getSkippedCount()}.
+     *
+     * @param timestamps timestamp of each row
+     * @param values     value of each row, or null to only count rows
+     * @param axis       axis to bucket by
+     * @return the aggregated buckets
+     */
+    public static TimeBuckets aggregate(long[] timestamps, double[] values, TimeAxis axis) {
+        checkInput(timestamps, values, axis);
+        TimeBuckets buckets = new TimeBuckets(axis);
+        buckets.addAll(timestamps, values, 0, timestamps.length);
+        return buckets;
+    }
+
+    /**
+     * Like {@link #aggregate(long[], double[], TimeAxis)} but splits the rows across the common
+     * {@link ForkJoinPool}. Uses a threshold of {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     *
+     * @param timestamps timestamp of each row
+     * @param values     value of each row, or null to only count rows
+     * @param axis       axis to bucket by
+     * @return the aggregated buckets
+     * @see #aggregateParallel(long[], double[], TimeAxis, int)
+     */
+    public static TimeBuckets aggregateParallel(long[] timestamps, double[] values, TimeAxis axis) {
+        return aggregateParallel(timestamps, values, axis, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Like {@link #aggregate(long[], double[], TimeAxis)} but splits the rows across the common
+     * {@link ForkJoinPool}. Each worker fills its own partial buckets which are merged at the end,
+     * so there is one set of bucket arrays per worker rather than per split. Inputs with fewer
+     * rows than parallelThreshold are aggregated on the calling thread.
+     *
+     * @param timestamps        timestamp of each row
+     * @param values            value of each row, or null to only count rows
+     * @param axis              axis to bucket by
+     * @param parallelThreshold minimum number of rows to split across workers
+     * @return the aggregated buckets
+     */
+    public static TimeBuckets aggregateParallel(long[] timestamps, double[] values, TimeAxis axis, int parallelThreshold) {
+        checkInput(timestamps, values, axis);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int rows = timestamps.length;
+        if (rows < Math.max(1, parallelThreshold) || pool.getParallelism() < 2) {
+            return aggregate(timestamps, values, axis);
+        }
+        // one chunk per worker keeps the number of partial bucket arrays bounded
+        int chunk = Math.max(parallelThreshold / 2, (rows + pool.getParallelism() - 1) / pool.getParallelism());
+        return pool.invoke(new AggregateTask(timestamps, values, axis, 0, rows, chunk));
+    }
+
+    static void checkInput(long[] timestamps, double[] values, TimeAxis axis) {
+        if (timestamps == null || axis == null) {
+            throw new IllegalArgumentException("timestamps and axis shouldn't be null!");
+        }
+        if (values != null && values.length != timestamps.length) {
+            throw new IllegalArgumentException("values length " + values.length
+                    + " doesn't match timestamps length " + timestamps.length + "!");
+        }
+    }
+
+    // the hot loop, rows [from, to) of the series
+    void addAll(long[] timestamps, double[] values, int from, int to) {
+        hasValues |= values != null;
+        for (int row = from; row < to; row++) {
+            int index = axis.indexOf(timestamps[row]);
+            // a NaN would poison the sum and stick in min/max as every comparison with it fails
+            if (index < 0 || (values != null && Double.isNaN(values[row]))) {
+                skipped++;
+                continue;
+            }
+            counts[index]++;
+            if (values != null) {
+                double value = values[row];
+                sums[index] += value;
+                // NaN compares false so the first value replaces the empty marker
+                if (!(value >= mins[index])) mins[index] = value;
+                if (!(value <= maxs[index])) maxs[index] = value;
+            }
+        }
+    }
+
+    // folds another partial result over the same axis into this one
+    void merge(TimeBuckets other) {
+        for (int i = 0; i < counts.length; i++) {
+            if (other.counts[i] == 0) continue;
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+            if (!(other.mins[i] >= mins[i])) mins[i] = other.mins[i];
+            if (!(other.maxs[i] <= maxs[i])) maxs[i] = other.maxs[i];
+        }
+        skipped += other.skipped;
+        hasValues |= other.hasValues;
+    }
+
+    private static class AggregateTask extends RecursiveTask<TimeBuckets> {
+        private final long[] mTimestamps;
+        private final double[] mValues;
+        private final TimeAxis mAxis;
+        private final int mFrom;
+        private final int mTo;
+        private final int mChunk;
+
+        AggregateTask(long[] timestamps, double[] values, TimeAxis axis, int from, int to, int chunk) {
+            mTimestamps = timestamps;
+            mValues = values;
+            mAxis = axis;
+            mFrom = from;
+            mTo = to;
+            mChunk = chunk;
+        }
+
+        @Override
+        protected TimeBuckets compute() {
+            if (mTo - mFrom <= mChunk) {
+                TimeBuckets partial = new TimeBuckets(mAxis);
+                partial.addAll(mTimestamps, mValues, mFrom, mTo);
+                return partial;
+            }
+            int mid = (mFrom + mTo) >>> 1;
+            AggregateTask right = new AggregateTask(mTimestamps, mValues, mAxis, mid, mTo, mChunk);
+            right.fork();
+            TimeBuckets result = new AggregateTask(mTimestamps, mValues, mAxis, mFrom, mid, mChunk).compute();
+            result.merge(right.join());
+            return result;
+        }
+    }
+
+    public TimeAxis getAxis() {
+        return axis;
+    }
+
+    /**
+     * @return number of buckets, same as the axis size
+     */
+    public int size() {
+        return counts.length;
+    }
+
+    /**
+     * @return number of rows that fell outside the axis or had a NaN value
+     */
+    public int getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * @return number of rows in each bucket. The returned array is not a copy.
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @return sum of the values in each bucket. The returned array is not a copy.
+     */
+    public double[] getSums() {
+        return sums;
+    }
+
+    /**
+     * @return smallest value in each bucket. The returned array is not a copy.
+     */
+    public double[] getMins() {
+        return mins;
+    }
+
+    /**
+     * @return largest value in each bucket. The returned array is not a copy.
+     */
+    public double[] getMaxs() {
+        return maxs;
+    }
+
+    /**
+     * @return mean of the values in each bucket, calculated on each call. NaN for empty buckets
+     * and for every bucket if only rows were counted.
+     */
+    public double[] getMeans() {
+        double[] means = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            means[i] = hasValues && counts[i] > 0 ? sums[i] / counts[i] : Double.NaN;
+        }
+        return means;
+    }
+}
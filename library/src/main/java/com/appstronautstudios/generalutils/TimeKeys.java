@@ -0,0 +1,276 @@
+package com.appstronautstudios.generalutils;
+
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
+/**
+ * Numeric encoding of the bucket keys produced by
+ * {@link AppstronautUtils#timestampToKeyString(long, Timescale)}. Keys are calculated with integer
+ * calendar arithmetic on local millis so no formatter, ZonedDateTime or String is created.
+ * <p>
+ * Keys match the string keys for years 1000 to 9999.
+ */
+final class TimeKeys {
+
+    static final long HOUR_MILLIS = 3600000L;
+    static final long DAY_MILLIS = 86400000L;
+    // returned by decode when a key needs the formatter to resolve or reject it
+    static final long INVALID = Long.MIN_VALUE;
+
+    // same locale the "YYYYww" week formatter resolves its week definition from
+    static final WeekFields WEEK_FIELDS = WeekFields.of(Locale.getDefault(Locale.Category.FORMAT));
+    private static final int WEEK_START = WEEK_FIELDS.getFirstDayOfWeek().getValue();
+    private static final int WEEK_MIN_DAYS = WEEK_FIELDS.getMinimalDaysInFirstWeek();
+
+    private TimeKeys() {
+    }
+
+    /**
+     * @param timestamp epoch millis
+     * @param scale     timescale of the key
+     * @param zone      zone to resolve local time in
+     * @return key as a number e.g. 2025110307 for HOUR
+     */
+    static long encode(long timestamp, Timescale scale, ZoneSnapshot zone) {
+        long local = zone.toLocalMillis(timestamp);
+        long epochDay = Math.floorDiv(local, DAY_MILLIS);
+        long date = civilFromDays(epochDay);
+
+        switch (scale) {
+            case HOUR:
+                return date * 100 + Math.floorMod(local, DAY_MILLIS) / HOUR_MILLIS;
+            case WEEK:
+                int year = (int) (date / 10000);
+                int dayOfYear = (int) (epochDay - daysFromCivil(year, 1, 1)) + 1;
+                return weekKey(year, dayOfYear, isoDayOfWeek(epochDay));
+            case MONTH:
+                return date / 100;
+            case DAY:
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * Inverse of {@link #encode(long, Timescale, ZoneSnapshot)}. HOUR keys resolve like
+     * LocalDateTime.atZone and the other scales to the start of their first day.
+     *
+     * @param key   key as a number
+     * @param scale timescale of the key
+     * @param zone  zone to resolve local time in
+     * @return epoch millis, or {@link #INVALID} if the key is not a well formed key
+     */
+    static long decode(long key, Timescale scale, ZoneSnapshot zone) {
+        if (key < 0) return INVALID;
+        long year = year(key, scale);
+        if (year < 1 || year > 9999) return INVALID;
+
+        switch (scale) {
+            case HOUR: {
+                int hour = (int) (key % 100);
+                int day = (int) (key / 100 % 100);
+                int month = (int) (key / 10000 % 100);
+                if (hour > 23 || !isValidDate(year, month, day)) return INVALID;
+                long local = daysFromCivil(year, month, day) * DAY_MILLIS + hour * HOUR_MILLIS;
+                return zone.toUtcMillis(local);
+            }
+            case WEEK: {
+                int week = (int) (key % 100);
+                if (week < 1 || week > 53) return INVALID;
+                return zone.startOfDayMillis(weekStartEpochDay(year, week));
+            }
+            case MONTH: {
+                int month = (int) (key % 100);
+                if (month < 1 || month > 12) return INVALID;
+                return zone.startOfDayMillis(daysFromCivil(year, month, 1));
+            }
+            case DAY:
+            default: {
+                int day = (int) (key % 100);
+                int month = (int) (key / 100 % 100);
+                if (!isValidDate(year, month, day)) return INVALID;
+                return zone.startOfDayMillis(daysFromCivil(year, month, day));
+            }
+        }
+    }
+
+    /**
+     * Reads a key made of exactly {@link #width(Timescale)} digits.
+     *
+     * @return key as a number, or -1 if the text is not a fixed width digit key
+     */
+    static long parseDigits(CharSequence text, Timescale scale) {
+        if (text == null || text.length() != width(scale)) return -1;
+        long key = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * @return number of digits in a key of this timescale
+     */
+    static int width(Timescale scale) {
+        switch (scale) {
+            case HOUR:
+                return 10;
+            case WEEK:
+            case MONTH:
+                return 6;
+            case DAY:
+            default:
+                return 8;
+        }
+    }
+
+    /**
+     * @return the year of a key, or the week based year for WEEK keys
+     */
+    static long year(long key, Timescale scale) {
+        return key / pow10(width(scale) - 4);
+    }
+
+    /**
+     * Writes the key zero padded to width digits.
+     *
+     * @return number of chars written
+     */
+    static int writeDigits(long key, int width, char[] dest, int offset) {
+        long remaining = key;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return width;
+    }
+
+    /**
+     * Appends the key zero padded to width digits.
+     */
+    static StringBuilder appendDigits(StringBuilder sb, long key, int width) {
+        for (long bound = pow10(width - 1); bound > 1 && key < bound; bound /= 10) {
+            sb.append('0');
+        }
+        return sb.append(key);
+    }
+
+    /**
+     * @return date packed as yyyyMMdd for days since 1970-01-01
+     */
+    static long civilFromDays(long epochDay) {
+        // http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * @return days since 1970-01-01 of the date
+     */
+    static long daysFromCivil(long year, int month, int day) {
+        // http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Out of range days are left to the formatter which clamps or rejects them.
+    private static boolean isValidDate(long year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month);
+    }
+
+    /**
+     * @return ISO day of week, 1 (Monday) to 7 (Sunday)
+     */
+    static int isoDayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    // Week based year and week of week based year packed as YYYYww. Mirrors WeekFields so keys
+    // agree with the "YYYYww" formatter for the same locale.
+    private static long weekKey(int year, int dayOfYear, int isoDayOfWeek) {
+        int dow = Math.floorMod(isoDayOfWeek - WEEK_START, 7) + 1;
+        int offset = startOfWeekOffset(dayOfYear, dow);
+        int week = computeWeek(offset, dayOfYear);
+        if (week == 0) {
+            // belongs to the last week of the previous year, re-run for December 31st
+            int previousYear = year - 1;
+            int previousLength = isLeapYear(previousYear) ? 366 : 365;
+            int previousDow = Math.floorMod(isoDayOfWeek - 1 - dayOfYear, 7) + 1;
+            return weekKey(previousYear, previousLength, previousDow);
+        }
+        int yearLength = isLeapYear(year) ? 366 : 365;
+        int newYearWeek = computeWeek(offset, yearLength + WEEK_MIN_DAYS);
+        if (week >= newYearWeek) {
+            return (year + 1) * 100L + (week - newYearWeek + 1);
+        }
+        return year * 100L + week;
+    }
+
+    // Monday of the week, resolved the way the "YYYYww" + day of week 1 formatter resolves it
+    // including clamping week 53 into years that only have 52.
+    private static long weekStartEpochDay(long weekBasedYear, int week) {
+        long jan1 = daysFromCivil(weekBasedYear, 1, 1);
+        int jan1Dow = Math.floorMod(isoDayOfWeek(jan1) - WEEK_START, 7) + 1;
+        int offset = startOfWeekOffset(1, jan1Dow);
+        int yearLength = isLeapYear(weekBasedYear) ? 366 : 365;
+        int newYearWeek = computeWeek(offset, yearLength + WEEK_MIN_DAYS);
+        int clampedWeek = Math.min(week, newYearWeek - 1);
+        int mondayDow = Math.floorMod(1 - WEEK_START, 7) + 1;
+        return jan1 - offset + (mondayDow - 1) + (clampedWeek - 1) * 7L;
+    }
+
+    private static int startOfWeekOffset(int day, int dow) {
+        int weekStart = Math.floorMod(day - dow, 7);
+        int offset = -weekStart;
+        if (weekStart + 1 > WEEK_MIN_DAYS) {
+            // the first week is too short so it belongs to the previous year
+            offset = 7 - weekStart;
+        }
+        return offset;
+    }
+
+    private static int computeWeek(int offset, int day) {
+        return (7 + offset + (day - 1)) / 7;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
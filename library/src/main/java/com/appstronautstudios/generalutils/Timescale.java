@@ -1,19 +1,22 @@
 package com.appstronautstudios.generalutils;
 
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 
 public enum Timescale {
-    HOUR("hour", Calendar.HOUR_OF_DAY),
-    DAY("day", Calendar.DATE),
-    WEEK("week", Calendar.WEEK_OF_YEAR),
-    MONTH("month", Calendar.MONTH);
+    HOUR("hour", Calendar.HOUR_OF_DAY, ChronoUnit.HOURS),
+    DAY("day", Calendar.DATE, ChronoUnit.DAYS),
+    WEEK("week", Calendar.WEEK_OF_YEAR, ChronoUnit.WEEKS),
+    MONTH("month", Calendar.MONTH, ChronoUnit.MONTHS);
 
     private final String key;
     private final int calendarField;
+    private final ChronoUnit chronoUnit;
 
-    Timescale(String key, int calendarField) {
+    Timescale(String key, int calendarField, ChronoUnit chronoUnit) {
         this.key = key;
         this.calendarField = calendarField;
+        this.chronoUnit = chronoUnit;
     }
 
     public String getKey() {
@@ -24,6 +27,13 @@ public enum Timescale {
         return calendarField;
     }
 
+    /**
+     * java.time equivalent of {@link #getCalendarField()}.
+     */
+    public ChronoUnit getChronoUnit() {
+        return chronoUnit;
+    }
+
     /**
      * Safely resolves a raw string key (e.g., from DB or API) to a Timescale.
      */
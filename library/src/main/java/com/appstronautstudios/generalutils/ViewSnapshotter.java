@@ -0,0 +1,216 @@
+package com.appstronautstudios.generalutils;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.PixelCopy;
+import android.view.View;
+import android.view.Window;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Takes snapshots of views without drawing them on the main thread where possible, e.g. for
+ * sharing a screenshot of a large layout:
+ * <pre><code>
+ * new ViewSnapshotter().setFormat(Bitmap.CompressFormat.PNG, 100)
+ *         .snapshotToFile(getWindow(), view, file, new SuccessFailListener() {
+ *             public void success(Object object) {
+ *                 File file = (File) object;
+ *             }
+ *
+ *             public void failure(Object object) {
+ *                 Exception e = (Exception) object;
+ *             }
+ *         });
+ * </code></pre>
+ * The pixels are copied off the window surface with {@link PixelCopy}, which the render thread
+ * does while the main thread carries on. Views that aren't on screen in a hardware accelerated
+ * window, or copies that fail, fall back to {@link View#draw} on the main thread. Encoding and
+ * writing files always happens in the background and listeners are told on the background
+ * executor, not the main thread.
+ * <p>
+ * Snapshots must be started on the main thread.
+ */
+public final class ViewSnapshotter {
+
+    private static final String TAG = "ViewSnapshotter";
+
+    private static Handler sBackgroundHandler;
+
+    private float scale = 1f;
+    private BitmapPool pool;
+    private Executor executor;
+    private Bitmap.CompressFormat format = Bitmap.CompressFormat.PNG;
+    private int quality = 100;
+
+    /**
+     * @param scale factor to snapshot at e.g. 0.5 for half size, 1 (default) for full size
+     */
+    public ViewSnapshotter setScale(float scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("scale must be positive!");
+        }
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * @param pool pool to take snapshot bitmaps from and return them to once written to a file,
+     *             or null (default) to allocate them
+     */
+    public ViewSnapshotter setPool(BitmapPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * @param executor executor to encode on and tell listeners on, or null (default) for a shared
+     *                 background thread
+     */
+    public ViewSnapshotter setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param format  format to write files in, PNG (default) or JPEG
+     * @param quality quality to provide to the bitmap compressor, ignored by PNG
+     */
+    public ViewSnapshotter setFormat(Bitmap.CompressFormat format, int quality) {
+        if (format != Bitmap.CompressFormat.PNG && format != Bitmap.CompressFormat.JPEG) {
+            throw new IllegalArgumentException("format must be PNG or JPEG!");
+        }
+        this.format = format;
+        this.quality = quality;
+        return this;
+    }
+
+    /**
+     * @param window   window the view is in, or null to always draw the view
+     * @param view     laid out view to snapshot
+     * @param listener told on the background executor, success with the {@link Bitmap} or failure
+     *                 with the exception. The bitmap belongs to the listener.
+     */
+    public void snapshot(Window window, View view, SuccessFailListener listener) {
+        if (view == null || listener == null) {
+            throw new IllegalArgumentException("view and listener shouldn't be null!");
+        }
+        Executor target = executor();
+        capture(window, view, bitmap -> target.execute(() -> listener.success(bitmap)), e -> target.execute(() -> listener.failure(e)));
+    }
+
+    /**
+     * Snapshots the view and writes it to a file, replacing it atomically.
+     *
+     * @param window   window the view is in, or null to always draw the view
+     * @param view     laid out view to snapshot
+     * @param file     file to write
+     * @param listener told on the background executor, success with the {@link File} or failure
+     *                 with the exception
+     */
+    public void snapshotToFile(Window window, View view, File file, SuccessFailListener listener) {
+        if (view == null || file == null || listener == null) {
+            throw new IllegalArgumentException("view, file and listener shouldn't be null!");
+        }
+        Executor target = executor();
+        Bitmap.CompressFormat fileFormat = format;
+        int fileQuality = quality;
+        BitmapPool bitmapPool = pool;
+        capture(window, view, bitmap -> target.execute(() -> {
+            try {
+                FileBuffers.writeAtomic(file, false, out -> {
+                    if (!bitmap.compress(fileFormat, fileQuality, out)) {
+                        throw new IOException("Failed to encode " + file);
+                    }
+                });
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing snapshot", e);
+                listener.failure(e);
+                return;
+            } finally {
+                if (bitmapPool != null) {
+                    bitmapPool.put(bitmap);
+                } else {
+                    bitmap.recycle();
+                }
+            }
+            listener.success(file);
+        }), e -> target.execute(() -> listener.failure(e)));
+    }
+
+    private interface Callback<T> {
+        void on(T value);
+    }
+
+    private void capture(Window window, View view, Callback<Bitmap> onBitmap, Callback<Exception> onError) {
+        int width = Math.round(view.getWidth() * scale);
+        int height = Math.round(view.getHeight() * scale);
+        if (width <= 0 || height <= 0) {
+            onError.on(new IllegalStateException("View hasn't been laid out"));
+            return;
+        }
+
+        BitmapPool bitmapPool = pool;
+        Bitmap bitmap = bitmapPool != null
+                ? bitmapPool.get(width, height, Bitmap.Config.ARGB_8888)
+                : Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        if (window == null || !view.isAttachedToWindow() || !view.isHardwareAccelerated()) {
+            draw(view, bitmap, onBitmap, onError);
+            return;
+        }
+
+        int[] location = new int[2];
+        view.getLocationInWindow(location);
+        Rect source = new Rect(location[0], location[1], location[0] + view.getWidth(), location[1] + view.getHeight());
+        try {
+            // the copy is scaled to the bitmap, the callback arrives in the background
+            PixelCopy.request(window, source, bitmap, result -> {
+                if (result == PixelCopy.SUCCESS) {
+                    onBitmap.on(bitmap);
+                } else {
+                    Log.w(TAG, "PixelCopy failed with " + result + ", drawing instead");
+                    view.post(() -> draw(view, bitmap, onBitmap, onError));
+                }
+            }, backgroundHandler());
+        } catch (IllegalArgumentException e) {
+            // window has no surface yet
+            draw(view, bitmap, onBitmap, onError);
+        }
+    }
+
+    // software fallback, views can only be drawn on the main thread
+    private static void draw(View view, Bitmap bitmap, Callback<Bitmap> onBitmap, Callback<Exception> onError) {
+        try {
+            AppstronautUtils.drawViewToBitmap(view, bitmap);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error drawing view", e);
+            bitmap.recycle();
+            onError.on(e);
+            return;
+        }
+        onBitmap.on(bitmap);
+    }
+
+    private Executor executor() {
+        if (executor != null) {
+            return executor;
+        }
+        Handler handler = backgroundHandler();
+        return handler::post;
+    }
+
+    private static synchronized Handler backgroundHandler() {
+        if (sBackgroundHandler == null) {
+            HandlerThread thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            sBackgroundHandler = new Handler(thread.getLooper());
+        }
+        return sBackgroundHandler;
+    }
+}
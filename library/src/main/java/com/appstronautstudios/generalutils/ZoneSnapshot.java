@@ -0,0 +1,194 @@
+package com.appstronautstudios.generalutils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Offset table for a single time zone, precomputed from its {@link ZoneRules}. Converting between
+ * epoch millis and local millis is a binary search over primitive arrays instead of building a
+ * ZonedDateTime per call. Instants outside the tabled range fall back to the ZoneRules.
+ * <p>
+ * The system default snapshot is built on first use and kept until {@link #invalidate()} is
+ * called, so looking it up allocates nothing. Apps that follow time zone changes register
+ * {@link AppstronautUtils#watchTimeZoneChanges(android.content.Context)}.
+ */
+final class ZoneSnapshot {
+
+    // transitions between 1900-01-01 and 2100-01-01 UTC are tabled
+    private static final long TABLE_START = -2208988800000L;
+    private static final long TABLE_END = 4102444800000L;
+    // keeps local lookups clear of the table edges whatever the offset
+    private static final long LOCAL_MARGIN = 86400000L;
+
+    private static volatile ZoneSnapshot sDefault;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    // utc millis of each transition
+    private final long[] transitions;
+    // first local millis that resolves to the offset after each transition
+    private final long[] localTransitions;
+    // same but resolving overlaps to the later offset
+    private final long[] laterLocalTransitions;
+    // offsets[i] applies before transitions[i], offsets[transitions.length] after the last one
+    private final int[] offsets;
+
+    /**
+     * @return snapshot of the system default time zone
+     */
+    static ZoneSnapshot systemDefault() {
+        ZoneSnapshot snapshot = sDefault;
+        if (snapshot == null) {
+            snapshot = new ZoneSnapshot(ZoneId.systemDefault());
+            sDefault = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops the system default snapshot so the next call to {@link #systemDefault()} picks up the
+     * current system time zone.
+     */
+    static void invalidate() {
+        sDefault = null;
+    }
+
+    ZoneSnapshot(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+
+        long[] utc = new long[64];
+        int[] offs = new int[65];
+        int count = 0;
+        Instant cursor = Instant.ofEpochMilli(TABLE_START);
+        offs[0] = rules.getOffset(cursor).getTotalSeconds() * 1000;
+        ZoneOffsetTransition transition;
+        while ((transition = rules.nextTransition(cursor)) != null
+                && transition.toEpochSecond() * 1000L < TABLE_END) {
+            if (count == utc.length) {
+                utc = Arrays.copyOf(utc, count * 2);
+                offs = Arrays.copyOf(offs, count * 2 + 1);
+            }
+            utc[count] = transition.toEpochSecond() * 1000L;
+            offs[count + 1] = transition.getOffsetAfter().getTotalSeconds() * 1000;
+            cursor = transition.getInstant();
+            count++;
+        }
+
+        transitions = Arrays.copyOf(utc, count);
+        offsets = Arrays.copyOf(offs, count + 1);
+        localTransitions = new long[count];
+        laterLocalTransitions = new long[count];
+        for (int i = 0; i < count; i++) {
+            // gaps and overlaps both resolve to the earlier offset like ZonedDateTime.ofLocal
+            localTransitions[i] = transitions[i] + Math.max(offsets[i], offsets[i + 1]);
+            laterLocalTransitions[i] = transitions[i] + offsets[i + 1];
+        }
+    }
+
+    ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @param utcMillis epoch millis
+     * @return zone offset in millis at utcMillis
+     */
+    int offsetMillis(long utcMillis) {
+        if (utcMillis < TABLE_START || utcMillis >= TABLE_END) {
+            return rules.getOffset(Instant.ofEpochMilli(utcMillis)).getTotalSeconds() * 1000;
+        }
+        return offsets[upperBound(transitions, utcMillis)];
+    }
+
+    /**
+     * @param utcMillis epoch millis
+     * @return local wall clock time at utcMillis expressed as millis since 1970-01-01T00:00
+     */
+    long toLocalMillis(long utcMillis) {
+        return utcMillis + offsetMillis(utcMillis);
+    }
+
+    /**
+     * @param utcMillis epoch millis
+     * @return local day at utcMillis as days since 1970-01-01
+     */
+    long toEpochDay(long utcMillis) {
+        return Math.floorDiv(toLocalMillis(utcMillis), TimeKeys.DAY_MILLIS);
+    }
+
+    /**
+     * Inverse of {@link #toLocalMillis(long)}. Local times in a gap are shifted later by the
+     * length of the gap and local times in an overlap use the earlier offset, matching
+     * {@link ZonedDateTime#ofLocal(LocalDateTime, ZoneId, ZoneOffset)}.
+     *
+     * @param localMillis local wall clock time as millis since 1970-01-01T00:00
+     * @return epoch millis
+     */
+    long toUtcMillis(long localMillis) {
+        if (localMillis < TABLE_START + LOCAL_MARGIN || localMillis >= TABLE_END - LOCAL_MARGIN) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                    (int) Math.floorMod(localMillis, 1000L) * 1000000, ZoneOffset.UTC);
+            return ZonedDateTime.ofLocal(local, zone, null).toInstant().toEpochMilli();
+        }
+        return localMillis - offsets[upperBound(localTransitions, localMillis)];
+    }
+
+    /**
+     * Like {@link #toUtcMillis(long)} but local times in an overlap use the later offset, matching
+     * {@link ZonedDateTime#withLaterOffsetAtOverlap()} and lenient Calendar parsing.
+     *
+     * @param localMillis local wall clock time as millis since 1970-01-01T00:00
+     * @return epoch millis
+     */
+    long toUtcMillisLaterOffset(long localMillis) {
+        if (localMillis < TABLE_START + LOCAL_MARGIN || localMillis >= TABLE_END - LOCAL_MARGIN) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                    (int) Math.floorMod(localMillis, 1000L) * 1000000, ZoneOffset.UTC);
+            return ZonedDateTime.ofLocal(local, zone, null).withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+        }
+        return localMillis - offsets[upperBound(laterLocalTransitions, localMillis)];
+    }
+
+    /**
+     * Start of a local day. If midnight falls in a gap this is the instant the gap ends, matching
+     * {@link LocalDate#atStartOfDay(ZoneId)}.
+     *
+     * @param epochDay local day as days since 1970-01-01
+     * @return epoch millis
+     */
+    long startOfDayMillis(long epochDay) {
+        long localMidnight = epochDay * TimeKeys.DAY_MILLIS;
+        long utcMillis = toUtcMillis(localMidnight);
+        if (toLocalMillis(utcMillis) != localMidnight) {
+            // midnight was skipped, the day starts at the transition
+            if (utcMillis < TABLE_START || utcMillis >= TABLE_END) {
+                return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            return transitions[upperBound(transitions, utcMillis) - 1];
+        }
+        return utcMillis;
+    }
+
+    // number of values in the sorted array that are <= key
+    private static int upperBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
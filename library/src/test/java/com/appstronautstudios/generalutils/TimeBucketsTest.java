@@ -0,0 +1,63 @@
+package com.appstronautstudios.generalutils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+public class TimeBucketsTest {
+
+    private static final long DAY = TimeKeys.DAY_MILLIS;
+    private static final long START = Instant.parse("2024-01-01T12:00:00Z").toEpochMilli();
+
+    @Test
+    public void nanValuesAreSkipped() {
+        TimeAxis axis = new TimeAxis(START, START + DAY, Timescale.DAY);
+        long[] timestamps = {START, START, START, START + DAY};
+        double[] values = {Double.NaN, 3, 1, 5};
+
+        TimeBuckets buckets = TimeBuckets.aggregate(timestamps, values, axis);
+
+        assertEquals(1, buckets.getSkippedCount());
+        assertEquals(2, buckets.getCounts()[0]);
+        assertEquals(4, buckets.getSums()[0], 0);
+        assertEquals(1, buckets.getMins()[0], 0);
+        assertEquals(3, buckets.getMaxs()[0], 0);
+        assertEquals(2, buckets.getMeans()[0], 0);
+        assertEquals(5, buckets.getMeans()[1], 0);
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        TimeAxis axis = new TimeAxis(START, START + 9 * DAY, Timescale.DAY);
+        long[] timestamps = new long[10000];
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = START + (i % 12) * DAY;
+            values[i] = i % 7 == 0 ? Double.NaN : i % 13;
+        }
+
+        TimeBuckets sequential = TimeBuckets.aggregate(timestamps, values, axis);
+        TimeBuckets parallel = TimeBuckets.aggregateParallel(timestamps, values, axis, 100);
+
+        assertEquals(sequential.getSkippedCount(), parallel.getSkippedCount());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.getCounts()[i], parallel.getCounts()[i]);
+            assertEquals(sequential.getSums()[i], parallel.getSums()[i], 0);
+            assertEquals(sequential.getMins()[i], parallel.getMins()[i], 0);
+            assertEquals(sequential.getMaxs()[i], parallel.getMaxs()[i], 0);
+        }
+    }
+
+    @Test
+    public void countOnlyMeansAreNaN() {
+        TimeAxis axis = new TimeAxis(START, START + DAY, Timescale.DAY);
+
+        TimeBuckets buckets = TimeBuckets.aggregate(new long[]{START, START}, null, axis);
+
+        assertEquals(2, buckets.getCounts()[0]);
+        assertEquals(Double.NaN, buckets.getMeans()[0], 0);
+        assertEquals(Double.NaN, buckets.getMins()[0], 0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.appstronautstudios.generalutils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class TimeKeysTest {
+
+    private static final String[] ZONES = {"America/New_York", "Europe/London", "Australia/Lord_Howe", "UTC"};
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Test
+    public void civilDaysMatchLocalDate() {
+        for (long epochDay = LocalDate.of(1000, 1, 1).toEpochDay(); epochDay <= LocalDate.of(9999, 12, 31).toEpochDay(); epochDay += 17) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(Long.parseLong(date.format(DAY)), TimeKeys.civilFromDays(epochDay));
+            assertEquals(epochDay, TimeKeys.daysFromCivil(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.getDayOfWeek().getValue(), TimeKeys.isoDayOfWeek(epochDay));
+        }
+    }
+
+    @Test
+    public void weekKeysMatchWeekFieldsAroundNewYear() {
+        ZoneSnapshot utc = new ZoneSnapshot(ZoneId.of("UTC"));
+        for (int year = 1890; year <= 2110; year++) {
+            LocalDate newYear = LocalDate.of(year, 1, 1);
+            for (int day = -10; day <= 10; day++) {
+                LocalDate date = newYear.plusDays(day);
+                long expected = date.get(TimeKeys.WEEK_FIELDS.weekBasedYear()) * 100L
+                        + date.get(TimeKeys.WEEK_FIELDS.weekOfWeekBasedYear());
+                long timestamp = date.atStartOfDay(ZoneId.of("UTC")).toInstant().toEpochMilli();
+                assertEquals(date.toString(), expected, TimeKeys.encode(timestamp, Timescale.WEEK, utc));
+                assertEquals(date.toString(), expected, TimeKeys.encode(timestamp + TimeKeys.DAY_MILLIS - 1, Timescale.WEEK, utc));
+            }
+        }
+    }
+
+    @Test
+    public void weekKeysRoundTrip() {
+        for (String id : ZONES) {
+            ZoneSnapshot zone = new ZoneSnapshot(ZoneId.of(id));
+            for (int year = 1890; year <= 2110; year++) {
+                for (int week = 1; week <= 52; week++) {
+                    long key = year * 100L + week;
+                    long start = TimeKeys.decode(key, Timescale.WEEK, zone);
+                    assertEquals(id + " " + key, key, TimeKeys.encode(start, Timescale.WEEK, zone));
+                }
+                // week 53 only exists in some years, the others clamp it to their last week
+                long key = year * 100L + 53;
+                long encoded = TimeKeys.encode(TimeKeys.decode(key, Timescale.WEEK, zone), Timescale.WEEK, zone);
+                assertEquals(id + " " + key, year, encoded / 100);
+            }
+        }
+    }
+
+    @Test
+    public void dayKeysMatchJavaTimeAcrossTransitions() {
+        for (String id : ZONES) {
+            ZoneId zoneId = ZoneId.of(id);
+            ZoneSnapshot zone = new ZoneSnapshot(zoneId);
+            for (LocalDate date = LocalDate.of(1890, 1, 1); date.getYear() <= 2110; date = date.plusDays(3)) {
+                long key = Long.parseLong(date.format(DAY));
+                long start = date.atStartOfDay(zoneId).toInstant().toEpochMilli();
+                assertEquals(id + " " + date, start, TimeKeys.decode(key, Timescale.DAY, zone));
+                assertEquals(id + " " + date, key, TimeKeys.encode(start, Timescale.DAY, zone));
+                assertEquals(id + " " + date, key / 100, TimeKeys.encode(start, Timescale.MONTH, zone));
+            }
+        }
+    }
+
+    @Test
+    public void hourKeysResolveLikeAtZone() {
+        ZoneId zoneId = ZoneId.of("America/New_York");
+        ZoneSnapshot zone = new ZoneSnapshot(zoneId);
+        // spring forward gap, fall back overlap and a normal day
+        for (LocalDate date : new LocalDate[]{LocalDate.of(2024, 3, 10), LocalDate.of(2024, 11, 3), LocalDate.of(2024, 6, 1)}) {
+            for (int hour = 0; hour < 24; hour++) {
+                LocalDateTime local = date.atTime(hour, 0);
+                long key = Long.parseLong(date.format(DAY)) * 100 + hour;
+                long expected = ZonedDateTime.of(local, zoneId).toInstant().toEpochMilli();
+                assertEquals(local.toString(), expected, TimeKeys.decode(key, Timescale.HOUR, zone));
+            }
+        }
+    }
+
+    @Test
+    public void malformedKeysAreInvalid() {
+        ZoneSnapshot utc = new ZoneSnapshot(ZoneId.of("UTC"));
+        assertEquals(TimeKeys.INVALID, TimeKeys.decode(20250230, Timescale.DAY, utc));
+        assertEquals(TimeKeys.INVALID, TimeKeys.decode(202513, Timescale.MONTH, utc));
+        assertEquals(TimeKeys.INVALID, TimeKeys.decode(202554, Timescale.WEEK, utc));
+        assertEquals(TimeKeys.INVALID, TimeKeys.decode(2025010124L, Timescale.HOUR, utc));
+        assertEquals(-1, TimeKeys.parseDigits("2025-01", Timescale.MONTH));
+    }
+}
@@ -0,0 +1,104 @@
+package com.appstronautstudios.generalutils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+
+public class ZoneSnapshotTest {
+
+    private static final String[] ZONES = {
+            "America/New_York", "Europe/London", "Australia/Lord_Howe", "America/Sao_Paulo",
+            "Asia/Kolkata", "Pacific/Apia", "UTC"
+    };
+    private static final long MINUTE = 60000L;
+
+    @Test
+    public void gapShiftsLaterByTheGapLength() {
+        ZoneSnapshot zone = new ZoneSnapshot(ZoneId.of("America/New_York"));
+        // 2024-03-10 02:30 doesn't exist, it resolves to 03:30 EDT
+        long local = localMillis(LocalDateTime.of(2024, 3, 10, 2, 30));
+        assertEquals(Instant.parse("2024-03-10T07:30:00Z").toEpochMilli(), zone.toUtcMillis(local));
+        assertEquals(Instant.parse("2024-03-10T07:30:00Z").toEpochMilli(), zone.toUtcMillisLaterOffset(local));
+    }
+
+    @Test
+    public void overlapUsesEarlierOrLaterOffset() {
+        ZoneSnapshot zone = new ZoneSnapshot(ZoneId.of("America/New_York"));
+        // 2024-11-03 01:30 happens twice, first in EDT then in EST
+        long local = localMillis(LocalDateTime.of(2024, 11, 3, 1, 30));
+        assertEquals(Instant.parse("2024-11-03T05:30:00Z").toEpochMilli(), zone.toUtcMillis(local));
+        assertEquals(Instant.parse("2024-11-03T06:30:00Z").toEpochMilli(), zone.toUtcMillisLaterOffset(local));
+    }
+
+    @Test
+    public void dayStartingInGapStartsAtTheTransition() {
+        ZoneSnapshot zone = new ZoneSnapshot(ZoneId.of("America/Sao_Paulo"));
+        // midnight was skipped on 2018-11-04, the day started at 01:00 -02:00
+        long epochDay = LocalDate.of(2018, 11, 4).toEpochDay();
+        assertEquals(Instant.parse("2018-11-04T03:00:00Z").toEpochMilli(), zone.startOfDayMillis(epochDay));
+    }
+
+    @Test
+    public void matchesZoneRulesAroundEveryTransition() {
+        for (String id : ZONES) {
+            ZoneId zoneId = ZoneId.of(id);
+            ZoneSnapshot zone = new ZoneSnapshot(zoneId);
+            Instant cursor = Instant.parse("1890-01-01T00:00:00Z");
+            ZoneOffsetTransition transition;
+            while ((transition = zoneId.getRules().nextTransition(cursor)) != null
+                    && transition.getInstant().isBefore(Instant.parse("2110-01-01T00:00:00Z"))) {
+                long utc = transition.getInstant().toEpochMilli();
+                for (long delta = -3 * 60; delta <= 3 * 60; delta += 15) {
+                    assertInstant(zone, zoneId, utc + delta * MINUTE);
+                    assertLocal(zone, zoneId, localMillis(transition.getDateTimeBefore()) + delta * MINUTE);
+                }
+                LocalDate date = transition.getDateTimeBefore().toLocalDate();
+                for (int day = -1; day <= 1; day++) {
+                    LocalDate around = date.plusDays(day);
+                    assertEquals(id + " " + around, around.atStartOfDay(zoneId).toInstant().toEpochMilli(),
+                            zone.startOfDayMillis(around.toEpochDay()));
+                }
+                cursor = transition.getInstant();
+            }
+        }
+    }
+
+    @Test
+    public void matchesZoneRulesOutsideTheTable() {
+        for (String id : ZONES) {
+            ZoneId zoneId = ZoneId.of(id);
+            ZoneSnapshot zone = new ZoneSnapshot(zoneId);
+            for (String instant : new String[]{"1850-06-15T12:00:00Z", "1899-12-31T23:00:00Z", "2100-01-01T00:00:00Z", "2150-06-15T12:00:00Z"}) {
+                long utc = Instant.parse(instant).toEpochMilli();
+                assertInstant(zone, zoneId, utc);
+                assertLocal(zone, zoneId, localMillis(LocalDateTime.ofInstant(Instant.ofEpochMilli(utc), ZoneOffset.UTC)));
+            }
+        }
+    }
+
+    private static void assertInstant(ZoneSnapshot zone, ZoneId zoneId, long utc) {
+        LocalDateTime expected = LocalDateTime.ofInstant(Instant.ofEpochMilli(utc), zoneId);
+        assertEquals(zoneId + " " + utc, localMillis(expected), zone.toLocalMillis(utc));
+        assertEquals(zoneId + " " + utc, expected.toLocalDate().toEpochDay(), zone.toEpochDay(utc));
+    }
+
+    private static void assertLocal(ZoneSnapshot zone, ZoneId zoneId, long local) {
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000L), 0, ZoneOffset.UTC);
+        ZonedDateTime earlier = ZonedDateTime.ofLocal(dateTime, zoneId, null);
+        assertEquals(zoneId + " " + dateTime, earlier.toInstant().toEpochMilli(), zone.toUtcMillis(local));
+        assertEquals(zoneId + " " + dateTime, earlier.withLaterOffsetAtOverlap().toInstant().toEpochMilli(),
+                zone.toUtcMillisLaterOffset(local));
+    }
+
+    private static long localMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+}